@@ -0,0 +1,218 @@
+package archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import model.Board;
+import model.Game;
+import model.Geometry;
+import model.Line;
+import model.Location;
+import model.Player;
+
+/**
+ * An ArchiveReader gives read access to the records in an archive file (see
+ * {@link GameRecord}).  The file is memory-mapped, and the records are
+ * numbered 0..size()-1 in the order they were written.
+ *
+ * <p>The accessors read directly from the mapped file and do not create any
+ * objects, so all of the games in an archive can be scanned without
+ * allocating memory for each record; for example:
+ * <pre>
+ *    for (int i = 0; i < reader.size(); i++)
+ *        if (reader.result(i) == GameRecord.RESULT_X_WON)
+ *            xWins++;
+ * </pre>
+ * Complete Game and Board objects can be rebuilt from any record with
+ * toGame(...) and toBoard(...).
+ *
+ * <p>The reader only sees the records that were in the file when it was
+ * opened.  Archives are limited to 2GB, the largest region Java can map at once.
+ */
+public class ArchiveReader implements Closeable {
+	private final FileChannel channel;
+	private final ByteBuffer  data;
+	private final int[]       offsets; // offsets[i] is the offset of record i
+	private final int         size;    // the number of records
+
+	/**
+	 * Open and map the archive at path.
+	 * @throws IOException if the file cannot be read, or is not a valid archive.
+	 */
+	public ArchiveReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		if (channel.size() > Integer.MAX_VALUE)
+			throw new IOException("archive is too large to map");
+		checkHeader(channel);
+
+		this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+		// find the start of each record
+		int[] offsets = new int[1024];
+		int   size    = 0;
+		int   offset  = GameRecord.FILE_HEADER_SIZE;
+		for (int end; (end = end(data, offset)) >= 0; offset = end) {
+			if (size == offsets.length)
+				offsets = Arrays.copyOf(offsets, 2 * size);
+			offsets[size++] = offset;
+		}
+		this.offsets = offsets;
+		this.size    = size;
+	}
+
+	/**
+	 * Return the offset just past the record that starts at offset in data,
+	 * or -1 if there is no complete record there (because offset is the end
+	 * of the file, or the record at the end of the file was only partially
+	 * written).
+	 */
+	private static int end(ByteBuffer data, int offset) {
+		if (offset + GameRecord.HEADER_SIZE > data.limit())
+			return -1;
+		int end = offset + length(data, offset);
+		return end > data.limit() ? -1 : end;
+	}
+
+	/**
+	 * Return the offset just past the last complete record of the archive
+	 * open on channel, whose file header has been checked.  The file is read
+	 * rather than mapped, so that it can be truncated afterwards.
+	 * @throws IOException if the file cannot be read.
+	 */
+	static long end(FileChannel channel) throws IOException {
+		ByteBuffer buf    = ByteBuffer.allocate(1 << 16);
+		long       start  = 0; // the offset in the file of buf's contents
+		long       offset = GameRecord.FILE_HEADER_SIZE;
+		buf.limit(0);
+		while (true) {
+			if (offset + GameRecord.HEADER_SIZE > start + buf.limit()) {
+				// read on from the start of the record
+				buf.clear();
+				start = offset;
+				while (buf.hasRemaining() && channel.read(buf, start + buf.position()) > 0)
+					;
+				buf.flip();
+				if (GameRecord.HEADER_SIZE > buf.limit())
+					return offset;
+			}
+			long end = offset + length(buf, (int) (offset - start));
+			if (end > channel.size())
+				return offset; // a partially written record
+			offset = end;
+		}
+	}
+
+	/** Return the length of the record whose header starts at offset in data. */
+	private static int length(ByteBuffer data, int offset) {
+		int rows = data.get(offset + GameRecord.ROWS) & 0xFF;
+		int cols = data.get(offset + GameRecord.COLS) & 0xFF;
+		int n    = data.getShort(offset + GameRecord.MOVES) & 0xFFFF;
+		return GameRecord.HEADER_SIZE + n * GameRecord.moveSize(rows, cols);
+	}
+
+	/** Check that channel starts with a valid file header. */
+	static void checkHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(GameRecord.FILE_HEADER_SIZE);
+		channel.read(header, 0);
+		if (header.position() < GameRecord.FILE_HEADER_SIZE
+		 || header.getInt(0) != GameRecord.MAGIC)
+			throw new IOException("not a game archive");
+		if (header.getInt(4) != GameRecord.VERSION)
+			throw new IOException("unsupported archive version " + header.getInt(4));
+	}
+
+	/** Return the number of records in the archive. */
+	public int size() {
+		return size;
+	}
+
+	/** Return the number of rows on the board of game i. */
+	public int rows(int i) {
+		return data.get(offsets[i] + GameRecord.ROWS) & 0xFF;
+	}
+
+	/** Return the number of columns on the board of game i. */
+	public int cols(int i) {
+		return data.get(offsets[i] + GameRecord.COLS) & 0xFF;
+	}
+
+	/** Return the player who moved first in game i. */
+	public Player firstPlayer(int i) {
+		return (data.get(offsets[i] + GameRecord.FLAGS) & 1) == 0 ? Player.X : Player.O;
+	}
+
+	/** Return the result of game i: one of the GameRecord.RESULT_ constants. */
+	public int result(int i) {
+		return (data.get(offsets[i] + GameRecord.FLAGS) >> 1) & 3;
+	}
+
+	/** Return the number of moves in game i. */
+	public int numMoves(int i) {
+		return data.getShort(offsets[i] + GameRecord.MOVES) & 0xFFFF;
+	}
+
+	/**
+	 * Return the cell index (see {@link Location#index}) of move number ply
+	 * (counting from 0) of game i.
+	 */
+	public int move(int i, int ply) {
+		int start = offsets[i] + GameRecord.HEADER_SIZE;
+		if (GameRecord.moveSize(rows(i), cols(i)) == 1)
+			return data.get(start + ply) & 0xFF;
+		else
+			return data.getShort(start + 2 * ply) & 0xFFFF;
+	}
+
+	/**
+	 * Return the number of the winning line of game i in its geometry's
+	 * lines(), or GameRecord.NO_LINE if game i was not won.
+	 */
+	public int winningLine(int i) {
+		return data.getShort(offsets[i] + GameRecord.LINE) & 0xFFFF;
+	}
+
+	/** Return the winning line of game i, or null if game i was not won. */
+	public Line getWinningLine(int i) {
+		int line = winningLine(i);
+		if (line == GameRecord.NO_LINE)
+			return null;
+		return Geometry.of(rows(i), cols(i)).lines().get(line);
+	}
+
+	/**
+	 * Return a new Game containing the moves of game i.
+	 * @throws IllegalArgumentException if the record contains invalid moves.
+	 */
+	public Game toGame(int i) throws IllegalArgumentException {
+		Game   g = new Game(Geometry.of(rows(i), cols(i)), firstPlayer(i));
+		Player p = firstPlayer(i);
+		for (int ply = 0; ply < numMoves(i); ply++) {
+			g.submitMove(p, Location.of(move(i, ply)));
+			p = p.opponent();
+		}
+		return g;
+	}
+
+	/**
+	 * Return the final board of game i.
+	 * @throws IllegalArgumentException if the record contains invalid moves.
+	 */
+	public Board toBoard(int i) throws IllegalArgumentException {
+		Board  b = Board.empty(Geometry.of(rows(i), cols(i)));
+		Player p = firstPlayer(i);
+		for (int ply = 0; ply < numMoves(i); ply++) {
+			b = b.update(p, move(i, ply));
+			p = p.opponent();
+		}
+		return b;
+	}
+
+	public @Override void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,72 @@
+package archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import model.Game;
+
+/**
+ * An ArchiveWriter appends game records (see {@link GameRecord}) to an
+ * archive file.  Records are only ever added at the end of the file; existing
+ * records are never modified, except that opening an archive removes a
+ * partially written record from its end (left there if a program stopped
+ * while appending to it).
+ */
+public class ArchiveWriter implements Closeable {
+	private final FileChannel channel;
+	private ByteBuffer        buf;
+
+	/**
+	 * Open the archive at path for appending, creating it if it does not
+	 * exist.
+	 * @throws IOException if the file cannot be opened, or is not an archive.
+	 */
+	public ArchiveWriter(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+		                                      StandardOpenOption.READ,
+		                                      StandardOpenOption.WRITE);
+		this.buf     = ByteBuffer.allocate(1024);
+
+		if (channel.size() == 0) {
+			buf.putInt(GameRecord.MAGIC).putInt(GameRecord.VERSION).flip();
+			channel.write(buf, 0);
+		} else {
+			// drop any partially written record left by an append that did
+			// not finish, so that the records appended after it can be read
+			ArchiveReader.checkHeader(channel);
+			long end = ArchiveReader.end(channel);
+			if (end < channel.size())
+				channel.truncate(end);
+		}
+		channel.position(channel.size());
+	}
+
+	/**
+	 * Append a record of g to the archive.
+	 * @throws IOException if the record cannot be written.
+	 */
+	public void append(Game g) throws IOException {
+		int size = GameRecord.size(g);
+		if (buf.capacity() < size)
+			buf = ByteBuffer.allocate(size);
+
+		buf.clear();
+		GameRecord.write(g, buf);
+		buf.flip();
+		while (buf.hasRemaining())
+			channel.write(buf);
+	}
+
+	/** Make sure everything that has been appended is stored on disk. */
+	public void flush() throws IOException {
+		channel.force(false);
+	}
+
+	public @Override void close() throws IOException {
+		channel.close();
+	}
+}
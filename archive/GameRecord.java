@@ -0,0 +1,114 @@
+package archive;
+
+import java.nio.ByteBuffer;
+
+import model.Board;
+import model.Board.State;
+import model.Game;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+/**
+ * The binary format of a game record.  An archive file starts with an 8-byte
+ * file header (the MAGIC number followed by the VERSION), followed by any
+ * number of records, one after the other.  Each record has an 8-byte header:
+ *
+ * <table><tr><th> Offset </th> <th> Size </th> <th> Contents                          </th></tr>
+ *        <tr><td> 0      </td> <td> 1    </td> <td> number of rows                    </td></tr>
+ *        <tr><td> 1      </td> <td> 1    </td> <td> number of columns                 </td></tr>
+ *        <tr><td> 2      </td> <td> 1    </td> <td> flags: bit 0 is set if O moved
+ *                                                   first, bits 1-2 are the result     </td></tr>
+ *        <tr><td> 3      </td> <td> 1    </td> <td> reserved (0)                      </td></tr>
+ *        <tr><td> 4      </td> <td> 2    </td> <td> the number of the winning line in
+ *                                                   Geometry.lines(), or NO_LINE      </td></tr>
+ *        <tr><td> 6      </td> <td> 2    </td> <td> the number of moves, n            </td></tr>
+ * </table>
+ *
+ * <p>The header is followed by the n moves, as cell indices (see
+ * {@link model.Location#index}).  Each move takes one byte if every cell index
+ * of the geometry fits in a byte (as it does for the 9x9 board), and two bytes
+ * otherwise.  All multi-byte numbers are big-endian.
+ *
+ * <p>The result is one of RESULT_NOT_OVER, RESULT_DRAW, RESULT_X_WON or
+ * RESULT_O_WON.
+ */
+public class GameRecord {
+	/** The first four bytes of every archive file ("GMKA"). */
+	public static final int MAGIC = 0x474D4B41;
+
+	/** The version of the format described here. */
+	public static final int VERSION = 1;
+
+	/** The size of the file header, in bytes. */
+	public static final int FILE_HEADER_SIZE = 8;
+
+	/** The size of a record header, in bytes. */
+	public static final int HEADER_SIZE = 8;
+
+	/** The winning line number used for games that have not been won. */
+	public static final int NO_LINE = 0xFFFF;
+
+	/** Possible results */
+	public static final int RESULT_NOT_OVER = 0,
+	                        RESULT_DRAW     = 1,
+	                        RESULT_X_WON    = 2,
+	                        RESULT_O_WON    = 3;
+
+	// offsets of the fields within a record
+	static final int ROWS  = 0;
+	static final int COLS  = 1;
+	static final int FLAGS = 2;
+	static final int LINE  = 4;
+	static final int MOVES = 6;
+
+	/** Return the number of bytes used to store each move on a rows x cols board. */
+	public static int moveSize(int rows, int cols) {
+		// the largest cell index is that of (rows-1, cols-1)
+		int largest = Location.of(rows - 1, cols - 1).index;
+		return largest < 256 ? 1 : 2;
+	}
+
+	/** Return the number of bytes used to store g. */
+	public static int size(Game g) {
+		Geometry geometry = g.getBoard().getGeometry();
+		return HEADER_SIZE + g.numMoves() * moveSize(geometry.rows, geometry.cols);
+	}
+
+	/**
+	 * Write a record for g into buf, at buf's position, and advance the
+	 * position past the record.
+	 * @throws java.nio.BufferOverflowException if there is not enough room.
+	 */
+	public static void write(Game g, ByteBuffer buf) {
+		Board    board    = g.getBoard();
+		Geometry geometry = board.getGeometry();
+		int[]    moves    = g.getMoves();
+		Player   first    = moves.length % 2 == 0 ? g.nextTurn() : g.nextTurn().opponent();
+
+		int result = RESULT_NOT_OVER;
+		int line   = NO_LINE;
+		if (board.getState() == State.HAS_WINNER) {
+			result = board.getWinner().winner == Player.X ? RESULT_X_WON : RESULT_O_WON;
+			line   = geometry.lines().indexOf(board.getWinner().line);
+		} else if (board.getState() == State.DRAW)
+			result = RESULT_DRAW;
+
+		buf.put((byte) geometry.rows);
+		buf.put((byte) geometry.cols);
+		buf.put((byte) ((first == Player.O ? 1 : 0) | result << 1));
+		buf.put((byte) 0);
+		buf.putShort((short) line);
+		buf.putShort((short) moves.length);
+
+		boolean wide = moveSize(geometry.rows, geometry.cols) == 2;
+		for (int move : moves)
+			if (wide)
+				buf.putShort((short) move);
+			else
+				buf.put((byte) move);
+	}
+
+	private GameRecord() {
+	}
+}
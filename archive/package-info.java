@@ -0,0 +1,15 @@
+// note: package-info.java is the standard place to put
+// overview documentation for a package.  There is no
+// actual code in this file.
+
+/**
+ * This package contains a compact binary format for storing finished games,
+ * and classes for writing and reading archive files of such records.
+ *
+ * <p>{@link archive.ArchiveWriter} appends games to an archive file, and
+ * {@link archive.ArchiveReader} memory-maps an archive and gives access to the
+ * records in it without creating objects for them.  The format itself is
+ * described in {@link archive.GameRecord}.</p>
+ */
+
+package archive;
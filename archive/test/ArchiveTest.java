@@ -0,0 +1,131 @@
+package archive.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import archive.ArchiveReader;
+import archive.ArchiveWriter;
+import archive.GameRecord;
+import model.Board.State;
+import model.Game;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+public class ArchiveTest {
+
+	/**
+	 * Return a game on g where X plays along row r and O along row r+1,
+	 * until whoever moved first wins.
+	 */
+	private static Game rowWin(Geometry g, Player first, int r) {
+		Game game = new Game(g, first);
+		while (game.getBoard().getState() == State.NOT_OVER) {
+			Player p = game.nextTurn();
+			game.submitMove(p, Location.of(p == Player.X ? r : r + 1, game.numMoves() / 2));
+		}
+		return game;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Path path = Files.createTempFile("games", ".gmka");
+		try {
+			Game small = rowWin(Geometry.DEFAULT, Player.X, 3);
+			Game large = rowWin(Geometry.LARGE, Player.O, 17);
+			Game open  = new Game(Geometry.STANDARD, Player.X);
+			open.submitMove(Player.X, Location.of(14,14));
+
+			ArchiveWriter w = new ArchiveWriter(path);
+			w.append(small);
+			w.append(large);
+			w.close();
+
+			// reopening appends to the existing archive
+			w = new ArchiveWriter(path);
+			w.append(open);
+			w.close();
+
+			long expected = GameRecord.FILE_HEADER_SIZE
+			              + GameRecord.size(small) + GameRecord.size(large) + GameRecord.size(open);
+			assertEquals(expected, Files.size(path));
+			assertEquals(GameRecord.HEADER_SIZE + 9, GameRecord.size(small));
+			assertEquals(GameRecord.HEADER_SIZE + 2*9, GameRecord.size(large));
+
+			ArchiveReader r = new ArchiveReader(path);
+			assertEquals(3, r.size());
+
+			assertEquals(GameRecord.RESULT_X_WON, r.result(0));
+			assertEquals(GameRecord.RESULT_O_WON, r.result(1));
+			assertEquals(GameRecord.RESULT_NOT_OVER, r.result(2));
+			assertEquals(Player.O, r.firstPlayer(1));
+			assertEquals(15, r.rows(2));
+			assertEquals(Location.of(14,14).index, r.move(2, 0));
+			assertEquals(GameRecord.NO_LINE, r.winningLine(2));
+			assertTrue(r.getWinningLine(1).contains(18,0));
+
+			assertEquals(small.getBoard(), r.toBoard(0));
+			assertEquals(large.getBoard(), r.toBoard(1));
+			assertEquals(open.getBoard(), r.toGame(2).getBoard());
+			assertArrayEquals(large.getMoves(), r.toGame(1).getMoves());
+			r.close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testPartialRecord() throws IOException {
+		Path path = Files.createTempFile("games", ".gmka");
+		try {
+			Game first  = rowWin(Geometry.DEFAULT, Player.X, 3);
+			Game second = rowWin(Geometry.LARGE, Player.O, 5);
+
+			ArchiveWriter w = new ArchiveWriter(path);
+			w.append(first);
+			w.append(second);
+			w.close();
+
+			// cut the second record short, as if the program had stopped
+			// while appending it
+			long full = Files.size(path);
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.truncate(full - 3);
+			}
+			ArchiveReader r = new ArchiveReader(path);
+			assertEquals(1, r.size());
+			r.close();
+
+			// the next writer drops it, so records appended later can be read
+			w = new ArchiveWriter(path);
+			w.append(second);
+			w.close();
+			assertEquals(full, Files.size(path));
+
+			r = new ArchiveReader(path);
+			assertEquals(2, r.size());
+			assertEquals(second.getBoard(), r.toBoard(1));
+			r.close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAnArchive() throws IOException {
+		Path path = Files.createTempFile("games", ".gmka");
+		try {
+			Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+			new ArchiveReader(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
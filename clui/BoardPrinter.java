@@ -31,22 +31,24 @@ public class BoardPrinter implements GameListener {
 	 * </pre>
 	 */
 	public  static void printBoard(Board b) {	
+		Geometry geometry = b.getGeometry();
+		
 		// print column headings
 		System.out.print("  ");
-		for (int col = 0; col < Board.NUM_COLS; col++)
-			System.out.print("   " + col);
+		for (int col = 0; col < geometry.cols; col++)
+			System.out.printf("%4d", col);
 		System.out.println();
 		
 		// print first separator (top of table)
-		printSep();
+		printSep(geometry);
 		
 		Line wins = b.getState() == State.HAS_WINNER ?
 			b.getWinner().line : null;
 
 		// print each row
-		for (int row = 0; row < Board.NUM_ROWS; row++) {
-			System.out.print(" " + row + " ");
-			for (int col = 0; col < Board.NUM_COLS; col++) {
+		for (int row = 0; row < geometry.rows; row++) {
+			System.out.printf("%2d ", row);
+			for (int col = 0; col < geometry.cols; col++) {
 				char mark = wins != null && wins.contains(row,col) ? '*' : ' ';
 				System.out.print("|" + mark);
 				if (b.get(row,col) == null)
@@ -57,7 +59,7 @@ public class BoardPrinter implements GameListener {
 				System.out.print(mark);
 			}
 			System.out.println("|");
-			printSep();
+			printSep(geometry);
 		}
 	}
 
@@ -66,9 +68,9 @@ public class BoardPrinter implements GameListener {
 	 *    +---+---+---+---+
 	 * </pre>
 	 */
-	private static void printSep() {
+	private static void printSep(Geometry geometry) {
 		System.out.print("   ");
-		for (int i = 0; i < Board.NUM_COLS; i++)
+		for (int i = 0; i < geometry.cols; i++)
 			System.out.print("+---");
 		System.out.println("+");
 	}
@@ -32,7 +32,10 @@ public class ConsoleController extends Controller {
 				if (in.equals("exit") || in.equals("quit"))
 					System.exit(0);
 				Scanner line = new Scanner(in);
-				return new Location(line.nextInt(), line.nextInt());
+				Location loc = Location.of(line.nextInt(), line.nextInt());
+				if (!g.getBoard().getGeometry().contains(loc))
+					throw new IllegalArgumentException("location out of bounds");
+				return loc;
 			} catch (Exception e) {
 				System.out.println("error: " + e);
 			}
@@ -4,9 +4,16 @@ import java.util.Scanner;
 
 import controller.Controller;
 import controller.DumbAI;
+import controller.GameDriver;
+import controller.MinMaxAI;
+import controller.MonteCarloAI;
+import controller.OpeningBook;
 import controller.RandomAI;
+import controller.PatternAI;
 import controller.SmartAI;
+import controller.SolvedCache;
 import model.Game;
+import model.Geometry;
 import model.Player;
 
 /**
@@ -22,7 +29,7 @@ public class Main{
 		Scanner s = new Scanner(System.in);
 		while(true) {
 			System.out.println("How should " + p + " be played?");
-			System.out.println("1) by a human   2) by the dumb AI   3) by the RandomAI   4) by the SmartAI");
+			System.out.println("1) by a human   2) by the dumb AI   3) by the RandomAI   4) by the SmartAI   5) by the PatternAI   6) by the MonteCarloAI");
 			switch(s.nextInt()) {
 			case 1:
 				return new ConsoleController(p);
@@ -31,9 +38,37 @@ public class Main{
 			case 3:
 				return new RandomAI(p);
 			case 4:
-				return new SmartAI(p);
+				return SmartAI.withTimeLimit(p, SmartAI.MOVE_TIME);
+			case 5:
+				PatternAI ai = new PatternAI(p);
+				ai.setTimeLimit(SmartAI.MOVE_TIME);
+				return ai;
+			case 6:
+				return new MonteCarloAI(p);
 			default:
-				System.out.println("please enter 1 or 2 or 3 or 4");
+				System.out.println("please enter a number from 1 to 6");
+			}
+		}
+	}
+	
+	/**
+	 * Ask the user what size board to play on, and return the corresponding
+	 * geometry.
+	 */
+	public static Geometry chooseGeometry() {
+		Scanner s = new Scanner(System.in);
+		while(true) {
+			System.out.println("What size board should be used?");
+			System.out.println("1) 9x9   2) 15x15   3) 19x19");
+			switch(s.nextInt()) {
+			case 1:
+				return Geometry.DEFAULT;
+			case 2:
+				return Geometry.STANDARD;
+			case 3:
+				return Geometry.LARGE;
+			default:
+				System.out.println("please enter 1 or 2 or 3");
 			}
 		}
 	}
@@ -42,23 +77,31 @@ public class Main{
 	 * Run a game at the console.  Ask the user what kind of players to use,
 	 * then let them compete! */
 	public static void main(String[] args) {
-		Game g = new Game();
+		Geometry geometry = chooseGeometry();
+		Game g = new Game(geometry, Player.X);
 		
 		// create the controllers for the two players
 		Controller playerX = createController(Player.X);
 		Controller playerO = createController(Player.O);
 
+		// the AIs play from the opening book, if there is one for this size,
+		// and share the positions solved in earlier games; an AI playing
+		// against a human thinks while the human does
+		SolvedCache solved = SolvedCache.openDefault();
+		for (Controller c : new Controller[] { playerX, playerO })
+			if (c instanceof MinMaxAI) {
+				Controller other = c == playerX ? playerO : playerX;
+				((MinMaxAI) c).setOpeningBook(OpeningBook.find(geometry));
+				((MinMaxAI) c).setSolvedCache(solved);
+				((MinMaxAI) c).setPondering(other instanceof ConsoleController);
+			}
+
 		// cause the board to be printed when it changes.
 		g.addListener(new BoardPrinter());
 
-		// cause the players to play when it is their turn
-		g.addListener(playerX);
-		g.addListener(playerO);
-
-		// Note: playerX and playerY will make moves when it is their turn,
-		// which will in turn change the board.  When the board changes, the
-		// players will be notified, which will cause them to submit additional
-		// moves.  In this way, the game will recursively run until no player
-		// is ready to submit another move.
+		// Note: the driver asks playerX and playerO for moves in turn, and
+		// submits them to the game, which causes the board to be printed.
+		// The game runs in this loop until it is over.
+		new GameDriver(g, playerX, playerO).run();
 	}
 }
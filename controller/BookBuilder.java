@@ -0,0 +1,121 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.Board;
+import model.Board.State;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.Symmetry;
+
+/**
+ * BookBuilder is a command line tool that makes an {@link OpeningBook} by
+ * searching the positions that can arise in the first few moves of a game.
+ *
+ * <p>Starting from the empty board, each position is searched to a fixed
+ * depth by a SmartAI, and its best move is added to the book.  Then the
+ * positions after each of the moves that SmartAI considers (see
+ * {@link SmartAI#moves}) are searched in the same way, up to the given number
+ * of moves (plies), so the book has a move for whatever the opponent plays,
+ * for either player.  Positions that are rotations or reflections of one
+ * that has already been searched are skipped.  The positions with the same
+ * number of moves are searched in parallel, each thread with its own AIs.
+ * The positions are those of games that X starts; since the book is keyed by
+ * the player to move, it has no moves for games that O starts.
+ *
+ * <p>Usage: <tt>BookBuilder [size [plies [depth [threads [file]]]]]</tt>,
+ * where size is 9, 15 or 19 (default 9), plies defaults to 5, depth to 5,
+ * threads to the number of processors, and file to
+ * {@link OpeningBook#file(Geometry)}.  The time taken by the searches and by
+ * looking up the same positions in the finished book is printed at the end.
+ */
+public class BookBuilder {
+
+	/** The number of times each position is looked up when timing the book. */
+	private static final int REPEAT = 1000;
+
+	/** Results are accumulated here so that the JIT cannot skip the work. */
+	static volatile long sink;
+
+	public static void main(String[] args)
+	       throws IOException, InterruptedException, ExecutionException
+	{
+		int  size    = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+		int  plies   = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int  depth   = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int  threads = args.length > 3 ? Integer.parseInt(args[3])
+		                               : Runtime.getRuntime().availableProcessors();
+		Geometry g    = Geometry.of(size, size);
+		Path     file = args.length > 4 ? Paths.get(args[4]) : OpeningBook.file(g);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ThreadLocal<SmartAI[]> ais = ThreadLocal.withInitial(() -> new SmartAI[] {
+			new SmartAI(Player.X, depth), new SmartAI(Player.O, depth)
+		});
+		SmartAI moves = new SmartAI(Player.X);
+
+		OpeningBook.Builder builder = new OpeningBook.Builder(g);
+		List<Board>  all   = new ArrayList<>();
+		List<Player> turns = new ArrayList<>(); // the player to move in all
+		List<Board>  level = new ArrayList<>();
+		Set<Long>    seen  = new HashSet<>();
+		level.add(Board.empty(g));
+
+		long start = System.nanoTime();
+		for (int ply = 0; ply < plies && !level.isEmpty(); ply++) {
+			Player turn = ply % 2 == 0 ? Player.X : Player.O;
+			List<Future<Location>> best = new ArrayList<>();
+			for (Board b : level)
+				best.add(pool.submit(() -> ais.get()[turn.ordinal()].bestMove(b)));
+
+			List<Board> next = new ArrayList<>();
+			for (int i = 0; i < level.size(); i++) {
+				Board b = level.get(i);
+				builder.add(b, turn, best.get(i).get(), depth);
+				if (ply + 1 < plies)
+					for (Location l : moves.moves(b)) {
+						Board child = b.update(turn, l);
+						if (child.getState() == State.NOT_OVER && seen.add(Symmetry.canonicalKey(child)))
+							next.add(child);
+					}
+			}
+			System.out.printf("%d moves: %d positions%n", ply, level.size());
+			all.addAll(level);
+			turns.addAll(Collections.nCopies(level.size(), turn));
+			level = next;
+		}
+		long searched = System.nanoTime() - start;
+		pool.shutdown();
+
+		builder.write(file);
+		OpeningBook book = OpeningBook.load(file);
+
+		// run once to warm up the JIT, then again for real
+		long sum = 0, lookup = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			start = System.nanoTime();
+			for (int i = 0; i < REPEAT; i++)
+				for (int j = 0; j < all.size(); j++)
+					sum += book.move(all.get(j), turns.get(j));
+			lookup = System.nanoTime() - start;
+		}
+		sink = sum;
+
+		System.out.printf("wrote %d positions to %s%n", book.size(), file);
+		System.out.printf("search: %.1fs in all, %.1fms per position with %d threads%n",
+		                  searched / 1e9, searched / 1e6 / all.size(), threads);
+		System.out.printf("lookup: %.2fus per position%n", lookup / 1e3 / REPEAT / all.size());
+	}
+}
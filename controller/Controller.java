@@ -11,6 +11,10 @@ import model.Player;
  * it is a player's turn.  For example, there are controllers that ask the user
  * to input moves, and other controllers that use various algorithms to make
  * their moves.
+ *
+ * <p>A Controller can either be added to a Game as a listener, in which case
+ * it plays whenever it is notified that it is its turn, or be asked for its
+ * moves by a {@link GameDriver}.
  */
 public abstract class Controller implements GameListener {
 
@@ -24,6 +28,15 @@ public abstract class Controller implements GameListener {
 	 */
 	protected abstract Location nextMove(Game g);
 	
+	/**
+	 * Called when it is not my turn in game g: either it is my opponent's
+	 * turn, or the game is over.  Controllers that think on their opponent's
+	 * time (see {@link MinMaxAI#setPondering(boolean)}) start or stop thinking
+	 * here; the default does nothing.  This must return promptly.
+	 */
+	protected void notMyTurn(Game g) {
+	}
+
 	/** Make a move for game g if possible. */
 	public @Override void gameChanged(Game g) {
 		if (g.getBoard().getState() == State.NOT_OVER && g.nextTurn() == me) {
@@ -31,6 +44,8 @@ public abstract class Controller implements GameListener {
 			if (move != null)
 				g.submitMove(me, move);
 		}
+		else
+			notMyTurn(g);
 	}
 
 	/** A Controller that plays for me */
@@ -21,9 +21,10 @@ public class DumbAI extends Controller {
 
 		// TODO Auto-generated method stub
 		List<Location> available = new ArrayList<Location>();
-		Location nextloc = new Location(Board.NUM_ROWS-1,Board.NUM_COLS-1);
+		Geometry geometry = g.getBoard().getGeometry();
+		Location nextloc = Location.of(geometry.rows-1,geometry.cols-1);
 		// find available moves
-		for (Location loc : Board.LOCATIONS)
+		for (Location loc : geometry.locations())
 			if (g.getBoard().get(loc) == null)
 				available.add(loc);
 
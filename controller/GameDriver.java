@@ -0,0 +1,69 @@
+package controller;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Board.State;
+import model.Game;
+import model.Location;
+import model.Player;
+
+/**
+ * A GameDriver plays a game between two Controllers with an explicit loop:
+ * it repeatedly asks the controller whose turn it is for a move and submits
+ * it to the game, until the game is over or a controller has no move.
+ *
+ * <p>This is an alternative to adding the controllers to the game as
+ * listeners.  The controllers are never called from inside the game's
+ * notifications, so the stack depth does not depend on the length of the game,
+ * and each move is requested from the thread that runs the driver.  Because a
+ * GameDriver is a Runnable, many games can be played at once on a thread pool.
+ *
+ * <p>The game's listeners (such as a view) are still notified after every
+ * move.  The controllers should not also be added as listeners to the game;
+ * instead, after each move, the driver tells the player who made it that it
+ * is not their turn (and, when the game is over, the other player too).
+ */
+public class GameDriver implements Runnable {
+	private final @NonNull Game       game;
+	private final @NonNull Controller playerX;
+	private final @NonNull Controller playerO;
+
+	/** Create a driver that plays g with playerX and playerO. */
+	public GameDriver(@NonNull Game g, @NonNull Controller playerX, @NonNull Controller playerO) {
+		this.game    = g;
+		this.playerX = playerX;
+		this.playerO = playerO;
+	}
+
+	/** Play until the game is over, or the player to move returns no move. */
+	public @Override void run() {
+		while (step())
+			;
+	}
+
+	/**
+	 * Ask the player to move for a move, and submit it.  Return true if a move
+	 * was made, or false if the game is over or the player returned null.
+	 */
+	public boolean step() {
+		if (game.getBoard().getState() != State.NOT_OVER)
+			return false;
+
+		Player     p    = game.nextTurn();
+		Controller c    = p == Player.X ? playerX : playerO;
+		Location   move = c.nextMove(game);
+		if (move == null)
+			return false;
+
+		game.submitMove(p, move);
+		c.notMyTurn(game);
+		if (game.getBoard().getState() != State.NOT_OVER)
+			(c == playerX ? playerO : playerX).notMyTurn(game);
+		return true;
+	}
+
+	/** Return the game being played. */
+	public @NonNull Game getGame() {
+		return game;
+	}
+}
@@ -1,18 +1,26 @@
 package controller;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNull;
 
 import model.Board;
 import model.Board.State;
 import model.Game;
+import model.Geometry;
 import model.Location;
-import model.NotImplementedException;
 import model.Player;
+import model.Position;
+import model.SearchBoard;
 
 /**
  * A MinMaxAI is a controller that uses the minimax algorithm to select the next
@@ -62,26 +70,135 @@ import model.Player;
  * <p>
  * This class implements the minimax algorithm with support for these two
  * strategies for reducing the search space. The abstract method
- * {@link #moves(Board)} is used to list all of the moves that the AI is willing
- * to consider, while the abstract method {@link #estimate(Board)} returns the
+ * {@link #moves(Position)} is used to list all of the moves that the AI is willing
+ * to consider, while the abstract method {@link #estimate(Position)} returns the
  * estimation of how good the board is for the given player.
+ *
+ * <p>
+ * The tree is searched with alpha-beta pruning: while searching the children
+ * of a configuration, we keep track of the best score that each player is
+ * already guaranteed elsewhere in the tree (alpha for me, beta for my
+ * opponent).  As soon as a configuration is known to be worse for one of the
+ * players than what they are already guaranteed, the rest of its children can
+ * be skipped, since that player would never allow the game to reach it.
+ * Pruning does not change the result of the search; it returns the same move
+ * that the plain minimax algorithm would, while visiting far fewer
+ * configurations.
+ *
+ * <p>
+ * The search does not create a new Board for every configuration it visits;
+ * instead it plays and takes back moves on a single {@link SearchBoard}, which
+ * is created from the game's board when a move is requested.  Nor does it
+ * create any other objects while searching: moves are cell indices, listed
+ * into buffers that are kept from one search to the next (see
+ * {@link #moves(SearchBoard, int[])}), and the best score and move of each
+ * configuration are tracked as ints.
+ *
+ * <p>
+ * The same configuration is often reached by playing the same moves in a
+ * different order.  If the AI has a {@link TranspositionTable}, the result of
+ * searching each configuration is stored in it; when a configuration is
+ * reached again, the stored score is used if it was searched at least as
+ * deeply, and otherwise the stored best move is searched first, which makes
+ * pruning more effective.
+ *
+ * <p>
+ * Pruning works best when the tree is searched with the narrowest possible
+ * window.  Once the first move of a configuration has been searched, the
+ * others are only searched to find out whether they are better than it, with
+ * a "null window" (alpha and beta one apart), which is much cheaper; a move
+ * is searched again with the full window only if it turns out to be better
+ * ("principal variation search").  The sequence of best moves found this way
+ * is the principal variation: the line of play the AI expects (see
+ * {@link #getPrincipalVariation()}).
+ *
+ * <p>
+ * How long a search to a fixed depth takes varies a lot from one position to
+ * another.  An AI can instead be given a time limit per move (see
+ * {@link #setTimeLimit(long)}), in which case it uses iterative deepening:
+ * it searches one move ahead, then two, and so on, until the time runs out.
+ *
+ * <p>
+ * The search can also use several threads (see {@link #setThreads(int)}),
+ * and can go on while my opponent is thinking (see
+ * {@link #setPondering(boolean)}).
  */
 public abstract class MinMaxAI extends Controller {
 	Player p;
 	int depth;
+	
+	private boolean pruning  = true; // use alpha-beta pruning
+	private boolean ordering = true; // use killer moves, history and priority
+	private boolean pvs      = true; // use principal variation search
+	private int     aspiration = ASPIRATION_WINDOW; // half-width of the root window, or 0
+	private TranspositionTable table; // results of earlier searches, or null
+	private OpeningBook        book;  // moves for the opening, or null
+	private SolvedCache        solved; // proven results, or null
+	private long    timeLimit;      // milliseconds per move, or 0 for none
+	private int     lastDepth;      // the depth of the last completed search
+	private List<Location> principalVariation = Collections.emptyList(); // of the last move
+	private int     rootThreats = ROOT_THREAT_BUDGET; // ThreatSolver budgets,
+	private int     leafThreats = LEAF_THREAT_BUDGET; // or 0 for no solver
+
+	/** The default half-width of the aspiration window (see setAspirationWindow). */
+	public static final int ASPIRATION_WINDOW = 200;
+
+	/** The default node budgets for the threat solver at the root and leaves. */
+	public static final int ROOT_THREAT_BUDGET = 20000, LEAF_THREAT_BUDGET = 100;
+
+	// searches[0] runs on the thread that calls bestMove, and the others (if
+	// any) are run by helpers at the same time
+	private Search[]        searches = { new Search(0) };
+	private ExecutorService helpers;  // null if there is only one search
+
+	// pondering: ponderer runs searches[0] on my opponent's time, and
+	// pondering is the running search (null if there is none), which started
+	// at ponderStart
+	private ExecutorService ponderer;  // null if pondering is off
+	private Future<Integer> pondering;
+	private long            ponderStart;
+	private int             ponderHits, ponderMisses;
+
+	/** The number of nodes searched between checks of the time limit. */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/**
+	 * The largest value of a history table entry before the table is halved;
+	 * far enough below Integer.MAX_VALUE that adding Depth * Depth (for any
+	 * depth up to TranspositionTable.MAX_DEPTH) cannot overflow.
+	 */
+	private static final int MAX_HISTORY = 1 << 30;
 
 	/**
 	 * Return an estimate of how good the given board is for me. A result of
 	 * infinity means I have won. A result of negative infinity means that I
 	 * have lost.
 	 */
-	protected abstract int estimate(Board b);
+	protected abstract int estimate(Position b);
 
 	/**
 	 * Return the set of moves that the AI will consider when planning ahead.
 	 * Must contain at least one move if there are any valid moves to make.
+	 * The result must not change when moves are subsequently played on b.
+	 */
+	protected abstract Iterable<Location> moves(Position b);
+
+	/**
+	 * Store the cell indices of the moves that the AI will consider on b in
+	 * result (which has room for Geometry.NUM_INDICES moves), in the order
+	 * moves(b) would list them, and return how many there are.  This is what
+	 * the search uses; the default implementation copies moves(b), and
+	 * subclasses should override it to avoid creating objects.
+	 *
+	 * <p>With more than one thread, this may be called by several threads at
+	 * once (on different boards).
 	 */
-	protected abstract Iterable<Location> moves(Board b);
+	protected int moves(SearchBoard b, int[] result) {
+		int n = 0;
+		for (Location l : moves(b))
+			result[n++] = l.index;
+		return n;
+	}
 
 	/**
 	 * Create an AI that will recursively search for the next move using the
@@ -94,89 +211,941 @@ public abstract class MinMaxAI extends Controller {
 	 */
 	protected MinMaxAI(Player me, int depth) {
 		super(me);
-		// TODO Auto-generated method stub
-		this.p = me;
+		p = me;
 		this.depth = depth;
 	}
 
+	/**
+	 * Turn alpha-beta pruning on or off (it is on by default).  Turning it off
+	 * gives the same moves, more slowly; this is only useful for measuring
+	 * the effect of pruning.
+	 */
+	public void setPruning(boolean pruning) {
+		this.pruning = pruning;
+	}
+
+	/**
+	 * Turn move ordering on or off (it is on by default).  Turning it off
+	 * gives the same moves, more slowly; this is only useful for measuring
+	 * the effect of ordering.  Even without move ordering, the best move
+	 * stored in the transposition table is searched first.
+	 */
+	public void setMoveOrdering(boolean ordering) {
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Turn principal variation search (described above) on or off (it is on
+	 * by default).  Turning it off searches every move with the full window,
+	 * which gives the same moves, more slowly; this is only useful for
+	 * measuring the effect of principal variation search.  It has no effect
+	 * without pruning.
+	 */
+	public void setPrincipalVariationSearch(boolean pvs) {
+		this.pvs = pvs;
+	}
+
+	/**
+	 * Set the half-width of the aspiration window, or turn aspiration windows
+	 * off if width is 0.  With a time limit, each search after the first
+	 * expects the best move to have about the same score as in the previous
+	 * search, and searches it with a window of width on either side of that
+	 * score; if the score turns out to be outside the window, the move is
+	 * searched again with a window four times as wide, and so on.  This makes
+	 * the search of the best move (usually the most expensive) cheaper, at the
+	 * cost of the re-searches.  The default is ASPIRATION_WINDOW.
+	 *
+	 * @throws IllegalArgumentException if width is negative.
+	 */
+	public void setAspirationWindow(int width) throws IllegalArgumentException {
+		if (width < 0)
+			throw new IllegalArgumentException("negative aspiration window: " + width);
+		this.aspiration = width;
+	}
+
+	/**
+	 * Return the priority of playing cell in b, for the player to move.  When
+	 * deciding which moves to search first, moves with higher priorities are
+	 * preferred.  The result must be between 0 and Integer.MAX_VALUE, and
+	 * should be cheap to compute; the default is 0 for every move.
+	 *
+	 * <p>With more than one thread, this may be called by several threads at
+	 * once (on different boards).
+	 */
+	protected int priority(SearchBoard b, int cell) {
+		return 0;
+	}
+
+	/**
+	 * Limit the time spent choosing each move to (about) the given number of
+	 * milliseconds, or remove the limit if millis is 0 (the default).
+	 *
+	 * <p>With a time limit, the depth given to the constructor is ignored;
+	 * instead, the board is searched 1, 2, 3, ... moves ahead, each search
+	 * starting with the best move of the one before, until the time runs out.
+	 * The best move of the deepest search that finished is chosen.  The search
+	 * also stops early if it finds a certain win or loss.
+	 *
+	 * @throws IllegalArgumentException if millis is negative.
+	 */
+	public void setTimeLimit(long millis) throws IllegalArgumentException {
+		if (millis < 0)
+			throw new IllegalArgumentException("negative time limit: " + millis);
+		this.timeLimit = millis;
+	}
+
+	/**
+	 * Return the number of moves ahead that the last call to bestMove looked
+	 * (with a time limit, the depth of the deepest search that finished), or
+	 * 0 if the move was found without searching.
+	 */
+	public int getSearchDepth() {
+		return lastDepth;
+	}
+
+	/**
+	 * Return the principal variation found by the last call to bestMove: the
+	 * move it returned, followed by the reply it expects, my answer to that,
+	 * and so on, as far as the search looked.  The line is cut short where
+	 * the search used a result from the transposition table or the solved
+	 * cache instead of searching.  If the move was found without searching,
+	 * the line only holds that move.
+	 */
+	public @NonNull List<Location> getPrincipalVariation() {
+		return principalVariation;
+	}
+
+	/**
+	 * Set the number of nodes the {@link ThreatSolver} may visit when looking
+	 * for a forced win at the start of a search (root) and at each position
+	 * one move before the end of the search (leaf); 0 turns it off.
+	 *
+	 * <p>If the solver finds a win for me at the start, its first move is
+	 * returned without searching; if my opponent threatens to complete a
+	 * five, blocking it is the only move that does not lose, so that is
+	 * returned without searching.  During the search, positions where the
+	 * player to move has a forced win are scored as won.
+	 *
+	 * @throws IllegalArgumentException if either budget is negative.
+	 */
+	public void setThreatSearch(int root, int leaf) throws IllegalArgumentException {
+		if (root < 0 || leaf < 0)
+			throw new IllegalArgumentException("negative threat search budget");
+		this.rootThreats = root;
+		this.leafThreats = leaf;
+	}
+
+	/**
+	 * Search with the given number of threads (the default is 1).
+	 *
+	 * <p>The extra threads search the same board as the main one, some of them
+	 * one move deeper, and share their results with it through the
+	 * transposition table ("lazy SMP").  The main thread's move is chosen, so
+	 * the move is at least as good as with a single thread: the main search
+	 * only uses results from the table that are at least as deep as its own.
+	 * Without a transposition table, the extra threads are not used.
+	 *
+	 * @throws IllegalArgumentException if threads is less than 1.
+	 */
+	public void setThreads(int threads) throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException("invalid number of threads: " + threads);
+
+		Search[] old = searches;
+		searches = Arrays.copyOf(old, threads);
+		for (int i = old.length; i < threads; i++)
+			searches[i] = new Search(i);
+
+		// the helper threads exit when they have been idle for a while, so an
+		// AI that is no longer used does not keep them alive
+		if (helpers != null)
+			helpers.shutdown();
+		if (threads == 1)
+			helpers = null;
+		else {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads - 1, threads - 1,
+			                                                 1, TimeUnit.SECONDS,
+			                                                 new LinkedBlockingQueue<Runnable>(), r -> {
+				Thread t = new Thread(r, "MinMaxAI helper");
+				t.setDaemon(true);
+				return t;
+			});
+			pool.allowCoreThreadTimeOut(true);
+			helpers = pool;
+		}
+	}
+
+	/** Return the number of threads used to search. */
+	public int getThreads() {
+		return searches.length;
+	}
+
+	/**
+	 * Turn pondering on or off (it is off by default).  When pondering is on,
+	 * the AI uses its opponent's time (see {@link #ponder(Board)}): it guesses
+	 * its opponent's reply, and searches the resulting board on a background
+	 * thread until it is asked for a move.  If the opponent does play the
+	 * guessed reply (a "ponder hit"), and the AI has already searched for as
+	 * long as it would have (or as deeply, without a time limit), the move it
+	 * found is returned at once; otherwise the search goes on for the rest of
+	 * the time.  Either way, the results of pondering are kept in the
+	 * transposition table, where they speed up the search for the actual move.
+	 * Without a transposition table, the AI does not ponder.
+	 *
+	 * <p>Pondering is only useful when the AI's opponent is a person, or
+	 * otherwise leaves the processor idle while thinking.
+	 */
+	public void setPondering(boolean on) {
+		if (on && ponderer == null) {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+			                                                 new LinkedBlockingQueue<Runnable>(), r -> {
+				Thread t = new Thread(r, "MinMaxAI ponder");
+				t.setDaemon(true);
+				return t;
+			});
+			pool.allowCoreThreadTimeOut(true);
+			ponderer = pool;
+		} else if (!on && ponderer != null) {
+			stopPondering();
+			ponderer.shutdown();
+			ponderer = null;
+		}
+	}
+
+	/**
+	 * If pondering is on (see setPondering), start pondering on board, where
+	 * it is my opponent's turn, and return at once; the search goes on until
+	 * the next call to bestMove, ponder or stopPondering.  Otherwise, or if
+	 * the game is over, do nothing.
+	 */
+	public void ponder(@NonNull Board board) {
+		stopPondering();
+		if (ponderer == null || table == null || board.getState() != State.NOT_OVER)
+			return;
+
+		Search s = searches[0];
+		s.stop      = false;
+		ponderStart = System.nanoTime();
+		table.newSearch();
+		pondering   = ponderer.submit(() -> s.ponder(board));
+	}
+
+	/** Stop pondering (if the AI is), and wait until the search has stopped. */
+	public void stopPondering() {
+		finishPondering();
+	}
+
+	/**
+	 * Return the number of calls to bestMove for which the AI had pondered on
+	 * the board (because the opponent played the reply it guessed).
+	 */
+	public int getPonderHits() {
+		return ponderHits;
+	}
+
+	/**
+	 * Return the number of calls to bestMove for which the AI had pondered on
+	 * another board than the one it was asked about.
+	 */
+	public int getPonderMisses() {
+		return ponderMisses;
+	}
+
+	/**
+	 * Start or stop pondering: the game is over, or it is my opponent's turn
+	 * in g.
+	 */
+	protected @Override void notMyTurn(Game g) {
+		if (g.getBoard().getState() == State.NOT_OVER)
+			ponder(g.getBoard());
+		else
+			stopPondering();
+	}
+
+	/**
+	 * Use the given transposition table to remember the results of searches,
+	 * or stop using one if table is null.  The scores in the table are
+	 * specific to this AI, so a table should not be shared between AIs.
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/** Return the transposition table used by this AI, or null if it has none. */
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+
+	/**
+	 * Play the moves in the given book (see {@link OpeningBook}) when the
+	 * board is in it, instead of searching, or stop using a book if book is
+	 * null (the default).
+	 */
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	/** Return the opening book used by this AI, or null if it has none. */
+	public OpeningBook getOpeningBook() {
+		return book;
+	}
+
+	/**
+	 * Use the given cache of solved positions (see {@link SolvedCache}), or stop
+	 * using one if cache is null (the default).  Whenever the threat solver
+	 * finds a forced win, it is stored in the cache; when the search reaches a
+	 * position that is in the cache, it uses the stored result instead of
+	 * searching the position.  If the board itself is a win for me in the
+	 * cache, the stored move is returned without searching.
+	 *
+	 * <p>Wins and losses found by the search itself are not stored: the search
+	 * only looks at the moves returned by moves(...), so they are not proofs.
+	 *
+	 * <p>Unlike transposition tables, caches may be shared between AIs.
+	 */
+	public void setSolvedCache(SolvedCache cache) {
+		this.solved = cache;
+	}
+
+	/** Return the cache of solved positions used by this AI, or null if it has none. */
+	public SolvedCache getSolvedCache() {
+		return solved;
+	}
+
+	/**
+	 * Return the number of configurations visited by the search so far (each
+	 * move played while searching counts as one), by all threads.
+	 */
+	public long getNodeCount() {
+		long result = 0;
+		for (Search s : searches)
+			result += s.nodes;
+		return result;
+	}
+
 	/**
 	 * Return the move that maximizes the score according to the minimax
 	 * algorithm described above.
 	 */
 	protected @Override Location nextMove(Game g) {
-		// TODO Auto-generated method stub
-		Iterable<Location> locations = this.moves(g.getBoard());
-		HashMap<Integer, Location> hm = new HashMap<Integer, Location>();
-		for (Location l : locations) {
-			int score;
-			if (this.depth > 1)
-				score = this.score(p.opponent(), g.getBoard().update(p, l), this.depth - 1);
-			else
-				score = this.estimate(g.getBoard().update(p, l));
-			hm.put(score, l);
-		}
-		return this.getMaxLocHM(hm).getValue();
+		return bestMove(g.getBoard());
 	}
 
-	protected HashMap.Entry<Integer, Location> getMaxLocHM(HashMap<Integer, Location> hm) {
-		HashMap.Entry<Integer, Location> temp = null;
-		int i = Integer.MIN_VALUE;
-		for (Map.Entry<Integer, Location> entry : hm.entrySet()) {
-			if (i == Integer.MIN_VALUE || entry.getKey() > i) {
-				i = entry.getKey();
-				temp = entry;
+	/**
+	 * Return the move that maximizes the score for me on b, according to the
+	 * minimax algorithm described above, assuming it is my turn.
+	 *
+	 * <p>Without a time limit, b is searched depth moves ahead, and if several
+	 * moves have the same score, the last one returned by moves is chosen.
+	 * With a time limit, b is searched 1, 2, 3, ... moves ahead until the time
+	 * runs out (see setTimeLimit).  If the AI has an opening book that has a
+	 * move for b, that move is returned without searching.
+	 */
+	public Location bestMove(@NonNull Board board) {
+		// the time already spent searching board, and the move found, if the
+		// AI has been pondering on it
+		boolean wasPondering = pondering != null;
+		long    pondered     = System.nanoTime() - ponderStart;
+		int     ponderMove   = finishPondering();
+		int     ponderDepth  = searches[0].completedDepth;
+		if (wasPondering) {
+			if (ponderMove != TranspositionTable.NO_MOVE && searches[0].ponderKey == board.getKey())
+				ponderHits++;
+			else {
+				ponderMisses++;
+				ponderMove = TranspositionTable.NO_MOVE;
 			}
 		}
-		if (temp == null) {
-			System.out.println("getMaxLocHM Location is null");
+
+		int booked = book == null ? OpeningBook.NO_MOVE : book.move(board, p);
+		if (booked != OpeningBook.NO_MOVE && board.get(booked) == null) {
+			lastDepth = 0;
+			principalVariation = Collections.singletonList(Location.of(booked));
+			return Location.of(booked);
+		}
+
+		int forced = searches[0].forcedMove(board);
+		if (forced != TranspositionTable.NO_MOVE) {
+			lastDepth = 0;
+			principalVariation = Collections.singletonList(Location.of(forced));
+			return Location.of(forced);
+		}
+
+		if (ponderMove != TranspositionTable.NO_MOVE && board.get(ponderMove) == null
+		    && (timeLimit == 0 ? ponderDepth >= depth : pondered >= timeLimit * 1000000)) {
+			lastDepth = ponderDepth;
+			principalVariation = searches[0].principalVariation();
+			return Location.of(ponderMove);
+		}
+		if (ponderMove == TranspositionTable.NO_MOVE)
+			pondered = 0;
+
+		// after a ponder hit, the pondering search's entries are kept as this
+		// search's own
+		if (table != null && ponderMove == TranspositionTable.NO_MOVE)
+			table.newSearch();
+		long deadline = timeLimit == 0 ? 0 : System.nanoTime() + timeLimit * 1000000 - pondered;
+
+		// the helpers only help by filling the table
+		List<Future<?>> running = new ArrayList<>();
+		if (table != null)
+			for (int i = 1; i < searches.length; i++) {
+				searches[i].start(board, deadline);
+				running.add(helpers.submit(searches[i]));
+			}
+
+		Search main = searches[0];
+		main.start(board, deadline);
+		int best  = main.iterate();
+		lastDepth = main.completedDepth;
+		principalVariation = main.principalVariation();
+		main.deadline = 0; // so that score(...) can be called between moves
+		main.timeUp   = false;
+
+		for (int i = 1; i < searches.length; i++)
+			searches[i].stop = true;
+		for (Future<?> f : running)
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("helper search failed", e.getCause());
+			}
+
+		return best == TranspositionTable.NO_MOVE ? null : Location.of(best);
+	}
+
+	/**
+	 * Stop the pondering search (if there is one), wait for it, and return
+	 * its best move, or NO_MOVE if there was none; pondering is left null.
+	 */
+	private int finishPondering() {
+		if (pondering == null)
+			return TranspositionTable.NO_MOVE;
+		searches[0].stop = true;
+		try {
+			return pondering.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return TranspositionTable.NO_MOVE;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("pondering failed", e.getCause());
+		} finally {
+			pondering = null;
 		}
-		return temp;
 	}
 
-	protected HashMap.Entry<Integer, Location> getMinLocHM(HashMap<Integer, Location> hm) {
-		HashMap.Entry<Integer, Location> temp = null;
-		int i = Integer.MAX_VALUE;
-		for (Map.Entry<Integer, Location> entry : hm.entrySet()) {
-			if (i == Integer.MAX_VALUE || entry.getKey() < i) {
-				i = entry.getKey();
-				temp = entry;
+	/**
+	 * Return the minimax score of b for me, looking Depth moves ahead.  The
+	 * player to move in b is b.nextTurn().  b is returned to its original
+	 * state before this method returns.
+	 */
+	protected int score(SearchBoard b, int Depth) {
+		return score(b, Depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Return the minimax score of b for me, looking Depth moves ahead, given
+	 * that I am already guaranteed a score of at least alpha and my opponent
+	 * can already hold me to at most beta.
+	 *
+	 * <p>If the score is strictly between alpha and beta, it is returned
+	 * exactly.  Otherwise the search may be cut short: if the score is at most
+	 * alpha, the result is some value that is at most alpha and at least the
+	 * score, and similarly if the score is at least beta.
+	 */
+	protected int score(SearchBoard b, int Depth, int alpha, int beta) {
+		return searches[0].score(b, Depth, alpha, beta);
+	}
+
+	/**
+	 * A Search holds the state of one thread's search: its board, its
+	 * statistics, its killer moves and history table, and its buffers.
+	 */
+	private class Search implements Runnable {
+		private final int        id;       // 0 for the main search
+		private SearchBoard      board;    // the board being searched
+		private long             nodes;    // number of configurations visited
+		private long             deadline; // System.nanoTime() at which to stop, or 0
+		private long             nextCheck; // node count at which to check the time
+		private boolean          timeUp;   // the search has run out of time
+		private volatile boolean stop;     // set to make a helper stop
+		private int              rootScore; // the score of the last root search
+		private int              completedDepth; // the depth of the last completed search
+		private boolean          unlimited; // deepen until stopped, even without a deadline
+		private long             ponderKey; // the key of the board pondered on
+		private final int[]      rootPv = new int[TranspositionTable.MAX_DEPTH + 1]; // the principal
+		private int              rootPvLength; // variation of the last completed search
+
+		// killers[ply] holds the two most recent moves that caused cutoffs at ply
+		private final int[][]  killers     = new int[TranspositionTable.MAX_DEPTH + 1][2];
+
+		// history[side][cell] grows each time playing cell caused a cutoff for
+		// side (0 for X, 1 for O), by more for cutoffs found by deeper searches;
+		// the whole table is halved whenever an entry passes MAX_HISTORY
+		private final int[][]  history     = new int[2][Geometry.NUM_INDICES];
+
+		// looks for forced wins
+		private final ThreatSolver solver = new ThreatSolver();
+
+		// the moves (and their sort keys) being searched at each ply
+		private final int[][]  moveBuffers = new int [TranspositionTable.MAX_DEPTH + 1][];
+		private final long[][] keyBuffers  = new long[TranspositionTable.MAX_DEPTH + 1][];
+
+		// pv[ply][0 .. pvLength[ply]-1] is the principal variation of the
+		// configuration being searched at ply, starting with its best move
+		private final int[][]  pv          = new int [TranspositionTable.MAX_DEPTH + 1][];
+		private final int[]    pvLength    = new int [TranspositionTable.MAX_DEPTH + 1];
+
+		Search(int id) {
+			this.id = id;
+		}
+
+		/** Prepare to search board, stopping at deadline (unless it is 0). */
+		void start(Board board, long deadline) {
+			this.board     = new SearchBoard(board, p);
+			this.deadline  = deadline;
+			this.nextCheck = nodes;
+			this.timeUp    = false;
+			this.stop      = false;
+			this.completedDepth = 0;
+			this.rootPvLength   = 0;
+			ageOrdering();
+		}
+
+		public @Override void run() {
+			iterate();
+		}
+
+		/**
+		 * Guess my opponent's reply on board (where it is their turn): the best
+		 * move stored in the table, searching board two moves ahead first if
+		 * there is none.  Then search the board after that reply to increasing
+		 * depths until stop is set, leave its key in ponderKey, and return the
+		 * best move of the deepest search that finished, or NO_MOVE if no reply
+		 * was found or it ends the game.  This runs on the ponder thread, and
+		 * stop is not reset, so that pondering can be stopped at any time.
+		 */
+		int ponder(Board board) {
+			SearchBoard b = new SearchBoard(board, p.opponent());
+			this.deadline  = 0;
+			this.nextCheck = nodes;
+			this.timeUp    = false;
+			this.completedDepth = 0;
+			this.rootPvLength   = 0;
+			ageOrdering();
+
+			int reply = TranspositionTable.move(table.probe(b.getKey()));
+			if (reply == TranspositionTable.NO_MOVE || b.get(reply) != null) {
+				score(b, 2, Integer.MIN_VALUE, Integer.MAX_VALUE);
+				reply = TranspositionTable.move(table.probe(b.getKey()));
+			}
+			if (timeUp || reply == TranspositionTable.NO_MOVE || b.get(reply) != null)
+				return TranspositionTable.NO_MOVE;
+			b.play(reply);
+			if (b.getState() != State.NOT_OVER)
+				return TranspositionTable.NO_MOVE;
+
+			this.board     = b;
+			this.ponderKey = b.getKey();
+			this.unlimited = true;
+			try {
+				return iterate();
+			} finally {
+				this.unlimited = false;
 			}
 		}
-		if (temp == null) {
-			System.out.println("getMinLocHM Location is null");
+
+		/**
+		 * Return the move I must play on board without searching: the first
+		 * move of a win in the solved cache or found by the threat solver, or
+		 * a block of a five, or NO_MOVE if there is none.
+		 */
+		int forcedMove(Board board) {
+			if (board.getState() != State.NOT_OVER)
+				return TranspositionTable.NO_MOVE;
+			SearchBoard b = new SearchBoard(board, p);
+
+			if (solved != null) {
+				long entry = solved.probe(b);
+				int  move  = SolvedCache.move(b, entry);
+				if (SolvedCache.result(entry) == SolvedCache.WIN && move != SolvedCache.NO_MOVE
+				    && board.getGeometry().contains(move) && b.get(move) == null)
+					return move;
+			}
+			if (rootThreats == 0)
+				return TranspositionTable.NO_MOVE;
+
+			int result = solver.findWin(b, rootThreats);
+			nodes += solver.getNodeCount();
+			if (result != TranspositionTable.NO_MOVE && solved != null)
+				solved.store(b, SolvedCache.WIN, solver.getWinLength(), result);
+			if (result == TranspositionTable.NO_MOVE)
+				result = solver.findThreat(b);
+			return result;
 		}
-		return temp;
-	}
 
-	protected int score(Player pp, Board b, int Depth) {
-		Iterable<Location> locations = this.moves(b);
-		HashMap<Integer, Location> hm = new HashMap<Integer, Location>();
-		if (b.getState() == State.DRAW)
-			return 0;
-		else if (b.getState() == State.HAS_WINNER) {
-			Player v = b.getWinner().winner;
-			return v == p ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		/**
+		 * Search the board, either to the AI's depth or, with a time limit, to
+		 * increasing depths until the time runs out, and return the best move
+		 * of the deepest search that finished.  Helpers with odd ids search one
+		 * move deeper, so that they are not all doing the same work.
+		 */
+		int iterate() {
+			int extra = id % 2;
+			if (deadline == 0 && !unlimited) {
+				int best = searchRoot(board, depth + extra, TranspositionTable.NO_MOVE, false);
+				if (!timeUp)
+					completedDepth = depth + extra;
+				return best;
+			}
+
+			// a search to depth 1 never runs out of time, so there is always
+			// a completed search to fall back on
+			int best = TranspositionTable.NO_MOVE;
+			int maxDepth = Math.min(board.numBlank(), TranspositionTable.MAX_DEPTH);
+			for (int d = 1 + extra; d <= maxDepth; d++) {
+				int move = searchRoot(board, d, best, best != TranspositionTable.NO_MOVE);
+				if (timeUp)
+					break;
+				best           = move;
+				completedDepth = d;
+				if (rootScore == Integer.MAX_VALUE || rootScore == Integer.MIN_VALUE)
+					break; // searching deeper cannot change the outcome
+			}
+			return best;
+		}
+
+		/**
+		 * Search b to the given depth, starting with the move first (unless it
+		 * is NO_MOVE), and return the best move, or NO_MOVE if there are no
+		 * moves.  If several moves have the same score, the last one searched
+		 * is chosen.  If aspire is set, the first move is searched with an
+		 * aspiration window around rootScore (the previous search's score).
+		 * The best move's score is left in rootScore, and the principal
+		 * variation in rootPv.  If the time runs out, the result is
+		 * meaningless.
+		 */
+		private int searchRoot(SearchBoard b, int Depth, int first, boolean aspire) {
+			int   best      = TranspositionTable.NO_MOVE;
+			int   bestScore = Integer.MIN_VALUE;
+			int   ply       = b.numMoves();
+			int[] cells     = buffer(ply);
+			int   n         = moves(b, cells);
+			pvLength[ply] = 0;
+
+			// move first to the front, keeping the others in order
+			for (int i = 0; i < n && first != TranspositionTable.NO_MOVE; i++)
+				if (cells[i] == first) {
+					System.arraycopy(cells, 0, cells, 1, i);
+					cells[0] = first;
+					break;
+				}
+
+			for (int i = 0; i < n; i++) {
+				int cell = cells[i];
+
+				// we need exact scores for moves that tie with the best so far, so
+				// only moves that are strictly worse than best may be pruned
+				int alpha = best == TranspositionTable.NO_MOVE || !pruning || bestScore == Integer.MIN_VALUE
+				          ? Integer.MIN_VALUE : bestScore - 1;
+
+				b.play(cell);
+				nodes++;
+				int score;
+				if (Depth == 1)
+					score = estimate(b);
+				else if (best == TranspositionTable.NO_MOVE && aspire && pruning && aspiration > 0)
+					score = aspirate(b, Depth - 1, rootScore);
+				else if (best == TranspositionTable.NO_MOVE || !pruning || !pvs)
+					score = score(b, Depth - 1, alpha, Integer.MAX_VALUE);
+				else {
+					// is cell at least as good as best?  only if so is its exact
+					// score needed
+					score = score(b, Depth - 1, alpha, alpha + 1);
+					if (score > alpha && !timeUp)
+						score = score(b, Depth - 1, alpha, Integer.MAX_VALUE);
+				}
+				b.undo();
+				if (timeUp)
+					return best;
+
+				if (best == TranspositionTable.NO_MOVE || score >= bestScore) {
+					best      = cell;
+					bestScore = score;
+					updatePv(ply, cell, Depth);
+				}
+			}
+			if (table != null && best != TranspositionTable.NO_MOVE)
+				table.store(b.getKey(), Depth, TranspositionTable.EXACT, bestScore, best);
+			rootScore    = bestScore;
+			rootPvLength = pvLength[ply];
+			System.arraycopy(pv[ply], 0, rootPv, 0, rootPvLength);
+			return best;
+		}
+
+		/**
+		 * Return the score of b, searched Depth moves ahead with an aspiration
+		 * window around guess (see setAspirationWindow), which is widened until
+		 * the score is inside it.
+		 */
+		private int aspirate(SearchBoard b, int Depth, int guess) {
+			long delta = aspiration;
+			long low   = (long) guess - delta, high = (long) guess + delta;
+			while (true) {
+				int alpha = (int) Math.max(low,  Integer.MIN_VALUE);
+				int beta  = (int) Math.min(high, Integer.MAX_VALUE);
+				int score = score(b, Depth, alpha, beta);
+				if (timeUp)
+					return score;
+
+				// a score at or beyond the edge of the window is only a bound,
+				// unless the edge is infinite
+				delta *= 4;
+				if (score <= alpha && alpha != Integer.MIN_VALUE)
+					low  = score - delta;
+				else if (score >= beta && beta != Integer.MAX_VALUE)
+					high = score + delta;
+				else
+					return score;
+			}
+		}
+
+		/**
+		 * Record that cell is the best move so far at ply, searching Depth moves
+		 * ahead: the principal variation at ply is cell, followed by the one
+		 * left at ply + 1 by the search of cell.
+		 */
+		private void updatePv(int ply, int cell, int Depth) {
+			int length = Depth > 1 ? pvLength[ply + 1] : 0;
+			pv[ply][0] = cell;
+			if (length > 0)
+				System.arraycopy(pv[ply + 1], 0, pv[ply], 1, length);
+			pvLength[ply] = length + 1;
+		}
+
+		/** Return the principal variation of the last completed search. */
+		List<Location> principalVariation() {
+			List<Location> result = new ArrayList<>(rootPvLength);
+			for (int i = 0; i < rootPvLength; i++)
+				result.add(Location.of(rootPv[i]));
+			return Collections.unmodifiableList(result);
+		}
+
+		/** See {@link MinMaxAI#score(SearchBoard, int, int, int)}. */
+		int score(SearchBoard b, int Depth, int alpha, int beta) {
+			int ply = b.numMoves();
+			pvLength[ply] = 0;
+			if (outOfTime())
+				return 0;
+
+			if (b.getState() == State.DRAW)
+				return 0;
+			else if (b.getState() == State.HAS_WINNER) {
+				Player v = b.getWinningPlayer();
+				return v == p ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+			}
+
+			boolean mine = b.nextTurn() == p;
+			if (solved != null) {
+				long entry = solved.probe(b);
+				if (entry != 0)
+					switch (SolvedCache.result(entry)) {
+					case SolvedCache.WIN:
+						return mine ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+					case SolvedCache.LOSS:
+						return mine ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+					default:
+						return 0;
+					}
+			}
+			if (Depth == 1 && leafThreats > 0) {
+				int win = solver.findWin(b, leafThreats);
+				nodes += solver.getNodeCount();
+				if (win != TranspositionTable.NO_MOVE) {
+					if (solved != null)
+						solved.store(b, SolvedCache.WIN, solver.getWinLength(), win);
+					return mine ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+				}
+			}
+
+			// use what we already know about b from the transposition table
+			int ttMove = TranspositionTable.NO_MOVE;
+			if (table != null) {
+				long entry = table.probe(b.getKey());
+				if (entry != 0) {
+					int ttScore = TranspositionTable.score(entry);
+					if (TranspositionTable.depth(entry) >= Depth) {
+						switch (TranspositionTable.bound(entry)) {
+						case TranspositionTable.EXACT:
+							return ttScore;
+						case TranspositionTable.LOWER:
+							alpha = Math.max(alpha, ttScore);
+							break;
+						case TranspositionTable.UPPER:
+							beta  = Math.min(beta, ttScore);
+							break;
+						}
+						if (alpha >= beta)
+							return ttScore;
+					}
+					ttMove = TranspositionTable.move(entry);
+				}
+			}
+			int alpha0 = alpha, beta0 = beta;
+
+			int     best     = mine ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+			int     bestMove = TranspositionTable.NO_MOVE;
+			int     side     = b.nextTurn() == Player.X ? 0 : 1;
+			int     n        = orderMoves(b, ply, side, ttMove);
+			int[]   order    = moveBuffers[ply];
+			for (int i = 0; i < n; i++) {
+				int cell = order[i];
+
+				b.play(cell);
+				nodes++;
+				int score;
+				if (Depth == 1)
+					score = estimate(b);
+				else if (i == 0 || !pruning || !pvs)
+					score = score(b, Depth - 1, alpha, beta);
+				else {
+					// only search with the full window if cell is better for the
+					// player to move than the best move so far
+					score = mine ? score(b, Depth - 1, alpha, alpha + 1)
+					             : score(b, Depth - 1, beta - 1, beta);
+					if (score > alpha && score < beta && !timeUp)
+						score = score(b, Depth - 1, alpha, beta);
+				}
+				b.undo();
+				if (timeUp)
+					return 0; // the result will be thrown away
+
+				if (mine ? score > best : score < best) {
+					bestMove = cell;
+					updatePv(ply, cell, Depth);
+				}
+				if (mine) {
+					best  = Math.max(best, score);
+					alpha = Math.max(alpha, best);
+				} else {
+					best  = Math.min(best, score);
+					beta  = Math.min(beta, best);
+				}
+				if (pruning && alpha >= beta) {
+					if (ordering)
+						addCutoff(ply, side, cell, Depth);
+					break;
+				}
+			}
+
+			int bound = best <= alpha0 ? TranspositionTable.UPPER
+			          : best >= beta0  ? TranspositionTable.LOWER
+			          :                  TranspositionTable.EXACT;
+			if (table != null)
+				table.store(b.getKey(), Depth, bound, best, bestMove);
+			return best;
+		}
+
+		/**
+		 * Return true if this search should stop: if the time limit for the
+		 * current move has passed, or a helper has been told to stop.  These are
+		 * only checked every CHECK_INTERVAL nodes.
+		 */
+		private boolean outOfTime() {
+			if (!timeUp && nodes >= nextCheck) {
+				nextCheck = nodes + CHECK_INTERVAL;
+				timeUp    = stop || deadline != 0 && System.nanoTime() - deadline > 0;
+			}
+			return timeUp;
+		}
+
+		/**
+		 * Put the moves to search in b into moveBuffers[ply], in the order in
+		 * which they should be searched, and return the number of moves.  side is
+		 * 0 if X is to move and 1 if O is.
+		 *
+		 * <p>ttMove (the best move found by an earlier search of b) comes first.
+		 * If move ordering is on, it is followed by the killer moves for this ply,
+		 * and then by the other moves in decreasing order of priority, with ties
+		 * broken by the history table.  Moves that are still tied are left in the
+		 * order returned by moves.
+		 */
+		private int orderMoves(SearchBoard b, int ply, int side, int ttMove) {
+			int[]  cells = buffer(ply);
+			long[] keys  = keyBuffers[ply];
+
+			int n = moves(b, cells);
+			for (int j = 0; j < n; j++) {
+				int  cell = cells[j];
+				long key;
+				if (cell == ttMove)
+					key = Long.MAX_VALUE;
+				else if (!ordering)
+					key = 0;
+				else if (cell == killers[ply][0])
+					key = Long.MAX_VALUE - 1;
+				else if (cell == killers[ply][1])
+					key = Long.MAX_VALUE - 2;
+				else
+					key = (long) priority(b, cell) << 32 | history[side][cell] & 0xFFFFFFFFL;
+
+				// insertion sort, in place; there are rarely more than a few
+				// dozen moves, and moves with equal keys stay in order
+				int i = j;
+				for (; i > 0 && keys[i - 1] < key; i--) {
+					keys[i]  = keys[i - 1];
+					cells[i] = cells[i - 1];
+				}
+				keys[i]  = key;
+				cells[i] = cell;
+			}
+			return n;
 		}
-		if (Depth == 1) {
-			for (Location l : locations) {
-				int score = this.estimate(b.update(pp, l));
-				hm.put(score, l);
+
+		/**
+		 * Return moveBuffers[ply], creating it (and keyBuffers[ply] and pv[ply])
+		 * if necessary.
+		 */
+		private int[] buffer(int ply) {
+			if (moveBuffers[ply] == null) {
+				moveBuffers[ply] = new int [Geometry.NUM_INDICES];
+				keyBuffers[ply]  = new long[Geometry.NUM_INDICES];
+				pv[ply]          = new int [TranspositionTable.MAX_DEPTH + 1];
 			}
-			if (this.p == pp) {
-				return this.getMaxLocHM(hm).getKey();
-			} else {
-				return this.getMinLocHM(hm).getKey();
+			return moveBuffers[ply];
+		}
+
+		/**
+		 * Record that playing cell at the given ply (by side, searching Depth
+		 * moves ahead) caused a cutoff, so that it is tried early elsewhere.
+		 */
+		private void addCutoff(int ply, int side, int cell, int Depth) {
+			if (killers[ply][0] != cell) {
+				killers[ply][1] = killers[ply][0];
+				killers[ply][0] = cell;
 			}
+			history[side][cell] += Depth * Depth;
+			if (history[side][cell] > MAX_HISTORY)
+				halveHistory();
 		}
-		hm.clear();
-		for (Location l : locations) {
-			int score = this.score(pp.opponent(), b.update(pp, l), Depth - 1);
-			hm.put(score, l);
+
+		/** Halve every entry of the history table, keeping their order. */
+		private void halveHistory() {
+			for (int[] h : history)
+				for (int i = 0; i < h.length; i++)
+					h[i] >>= 1;
 		}
-		if (this.p != pp) {
-			return this.getMinLocHM(hm).getKey();
-		} else {
-			return this.getMaxLocHM(hm).getKey();
+
+		/**
+		 * Forget the killer moves, and reduce the history table, which were
+		 * collected while searching for the previous move.
+		 */
+		private void ageOrdering() {
+			for (int[] k : killers)
+				Arrays.fill(k, TranspositionTable.NO_MOVE);
+			halveHistory();
 		}
 	}
 }
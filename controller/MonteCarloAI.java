@@ -0,0 +1,628 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Board;
+import model.Board.State;
+import model.Game;
+import model.Geometry;
+import model.Line;
+import model.LineCounts;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+/**
+ * A MonteCarloAI is a controller that chooses its moves with Monte Carlo tree
+ * search: instead of estimating how good a board is, it plays many quick
+ * games to the end ("playouts"), and prefers the moves that won most often.
+ *
+ * <p>The playouts are guided by a tree of the positions reached from the
+ * board, which grows as the search goes on.  Each playout starts by walking
+ * down the tree, at each node choosing the child with the highest upper
+ * confidence bound (UCT):
+ * <pre>
+ *     wins / visits + EXPLORATION * sqrt(ln(parent's visits) / visits)
+ * </pre>
+ * which balances playing the moves that have done well so far against trying
+ * the moves that have not been tried much.  Children that have not been
+ * visited at all are tried first.  When the walk reaches a leaf that has been
+ * visited EXPAND_VISITS times, the leaf's children (the empty cells next to a
+ * mark) are added to the tree.  From there on, the moves are chosen by the
+ * playout policy until the game is over, and the result is added to every node
+ * on the way down.  The move that was visited most often is played.
+ *
+ * <p>With pattern playouts (the default), a playout completes a five if the
+ * player to move can, and otherwise blocks the opponent's five; the other moves
+ * are random, preferring cells next to a mark.  Random playouts choose each
+ * move at random among all the empty cells, which is faster but much less
+ * informative.
+ *
+ * <p>The tree is kept in arrays of primitive values indexed by node number,
+ * rather than in node objects, and the children of each node are numbered
+ * consecutively.  After a move, the part of the tree under the moves actually
+ * played is kept for the next search, and the rest is discarded.
+ *
+ * <p>The search can use several threads (see {@link #setThreads(int)}), which
+ * share the tree.  A thread counts its visit to each node on the way down,
+ * before the result of its playout is known; until the result is added, the
+ * visit counts as a loss ("virtual loss"), which steers the other threads
+ * towards other parts of the tree.
+ *
+ * <p>Like a MinMaxAI, a MonteCarloAI first asks a {@link ThreatSolver} for a
+ * forced win or a five that must be blocked, and only searches if there is
+ * none.
+ */
+public class MonteCarloAI extends Controller {
+
+	/** The exploration constant in the UCT formula. */
+	public static final double EXPLORATION = 0.7;
+
+	/** The number of visits after which a leaf's children are added to the tree. */
+	public static final int EXPAND_VISITS = 8;
+
+	/** The default maximum number of nodes in the tree. */
+	public static final int DEFAULT_NODES = 1 << 20;
+
+	/** The number of random cells a pattern playout tries to find one next to a mark. */
+	private static final int TRIES = 4;
+
+	/** The values of first for nodes whose children have not been added. */
+	private static final int UNEXPANDED = -1, EXPANDING = -2;
+
+	private static final int NO_MOVE = TranspositionTable.NO_MOVE;
+
+	private long    timeLimit;    // milliseconds per move, or 0 for none
+	private int     playoutLimit; // playouts per move, or 0 for none
+	private boolean patterns = true; // use pattern playouts
+	private int     threats  = MinMaxAI.ROOT_THREAT_BUDGET; // ThreatSolver budget
+	private long    seed     = new SplittableRandom().nextLong();
+
+	private final int capacity; // the maximum number of nodes in a tree
+	private Tree      tree;     // the current tree
+	private Tree      spare;    // the tree to copy into when reusing, or null
+	private Board     root;     // the board at the root of tree, or null
+	private int       reused;   // the number of nodes kept from the last search
+
+	private final ThreatSolver  solver   = new ThreatSolver();
+	private final AtomicInteger playouts = new AtomicInteger();
+	private long                deadline; // System.nanoTime() at which to stop, or 0
+	private volatile boolean    stop;     // set to make the workers stop
+
+	// workers[0] runs on the thread that calls bestMove, and the others (if
+	// any) are run by helpers at the same time
+	private Worker[]        workers = { new Worker(0) };
+	private ExecutorService helpers;  // null if there is only one worker
+
+	/** Create a MonteCarloAI that spends SmartAI.MOVE_TIME per move. */
+	public MonteCarloAI(Player me) {
+		this(me, SmartAI.MOVE_TIME);
+	}
+
+	/** Create a MonteCarloAI that spends millis milliseconds per move. */
+	public MonteCarloAI(Player me, long millis) {
+		this(me, millis, DEFAULT_NODES);
+	}
+
+	/**
+	 * Create a MonteCarloAI that spends millis milliseconds per move (or has no
+	 * time limit, if millis is 0), and whose tree holds up to nodes nodes.
+	 *
+	 * @throws IllegalArgumentException if millis is negative or nodes is less
+	 *         than twice the number of cells on the largest board.
+	 */
+	public MonteCarloAI(Player me, long millis, int nodes) throws IllegalArgumentException {
+		super(me);
+		if (nodes < 2 * Geometry.NUM_INDICES)
+			throw new IllegalArgumentException("tree too small: " + nodes);
+		setTimeLimit(millis);
+		this.capacity = nodes;
+		this.tree     = new Tree(nodes);
+	}
+
+	/**
+	 * Limit the time spent choosing each move to (about) the given number of
+	 * milliseconds, or remove the limit if millis is 0.
+	 *
+	 * @throws IllegalArgumentException if millis is negative.
+	 */
+	public void setTimeLimit(long millis) throws IllegalArgumentException {
+		if (millis < 0)
+			throw new IllegalArgumentException("negative time limit: " + millis);
+		this.timeLimit = millis;
+	}
+
+	/**
+	 * Limit the number of playouts for each move, or remove the limit if
+	 * playouts is 0 (the default).  With both a time limit and a playout
+	 * limit, the search stops when either is reached.  With several threads,
+	 * a few more playouts than the limit may be played.
+	 *
+	 * @throws IllegalArgumentException if playouts is negative.
+	 */
+	public void setPlayoutLimit(int playouts) throws IllegalArgumentException {
+		if (playouts < 0)
+			throw new IllegalArgumentException("negative playout limit: " + playouts);
+		this.playoutLimit = playouts;
+	}
+
+	/** Use pattern playouts (the default) or random ones. */
+	public void setPatternPlayouts(boolean patterns) {
+		this.patterns = patterns;
+	}
+
+	/**
+	 * Set the number of nodes the {@link ThreatSolver} may visit when looking
+	 * for a forced win before searching; 0 turns it off.
+	 *
+	 * @throws IllegalArgumentException if budget is negative.
+	 */
+	public void setThreatSearch(int budget) throws IllegalArgumentException {
+		if (budget < 0)
+			throw new IllegalArgumentException("negative threat search budget");
+		this.threats = budget;
+	}
+
+	/**
+	 * Set the seed of the random numbers used by the playouts.  With one
+	 * thread and a playout limit (and no time limit), the same seed gives
+	 * the same moves.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Search with the given number of threads (the default is 1), which all
+	 * add to the same tree.
+	 *
+	 * @throws IllegalArgumentException if threads is less than 1.
+	 */
+	public void setThreads(int threads) throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException("invalid number of threads: " + threads);
+
+		Worker[] old = workers;
+		workers = Arrays.copyOf(old, threads);
+		for (int i = old.length; i < threads; i++)
+			workers[i] = new Worker(i);
+
+		// as in MinMaxAI, the helper threads exit when they have been idle for a
+		// while, so an AI that is no longer used does not keep them alive
+		if (helpers != null)
+			helpers.shutdown();
+		if (threads == 1)
+			helpers = null;
+		else {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads - 1, threads - 1,
+			                                                 1, TimeUnit.SECONDS,
+			                                                 new LinkedBlockingQueue<Runnable>(), r -> {
+				Thread t = new Thread(r, "MonteCarloAI helper");
+				t.setDaemon(true);
+				return t;
+			});
+			pool.allowCoreThreadTimeOut(true);
+			helpers = pool;
+		}
+	}
+
+	/** Return the number of threads used to search. */
+	public int getThreads() {
+		return workers.length;
+	}
+
+	/** Return the number of playouts played by the last call to bestMove. */
+	public int getPlayoutCount() {
+		return playouts.get();
+	}
+
+	/** Return the number of nodes in the tree. */
+	public int getTreeSize() {
+		return tree.size.get();
+	}
+
+	/**
+	 * Return the number of nodes that the last call to bestMove kept from the
+	 * tree of the call before.
+	 */
+	public int getReusedNodes() {
+		return reused;
+	}
+
+	protected @Override Location nextMove(Game g) {
+		return bestMove(g.getBoard());
+	}
+
+	/**
+	 * Return the move I should make on b, assuming it is my turn, or null if
+	 * the game is over.
+	 *
+	 * @throws IllegalStateException if there is neither a time limit nor a
+	 *         playout limit.
+	 */
+	public Location bestMove(@NonNull Board board) throws IllegalStateException {
+		if (timeLimit == 0 && playoutLimit == 0)
+			throw new IllegalStateException("MonteCarloAI needs a time or playout limit");
+		if (board.getState() != State.NOT_OVER)
+			return null;
+
+		if (threats > 0) {
+			SearchBoard b = new SearchBoard(board, me);
+			int forced = solver.findWin(b, threats);
+			if (forced == NO_MOVE)
+				forced = solver.findThreat(b);
+			if (forced != NO_MOVE)
+				return Location.of(forced);
+		}
+
+		moveRoot(board);
+		playouts.set(0);
+		deadline = timeLimit == 0 ? 0 : System.nanoTime() + timeLimit * 1000000;
+		stop     = false;
+
+		List<Future<?>> running = new ArrayList<>();
+		for (int i = 1; i < workers.length; i++) {
+			workers[i].start(board);
+			running.add(helpers.submit(workers[i]));
+		}
+		workers[0].start(board);
+		workers[0].run();
+
+		stop = true;
+		for (Future<?> f : running)
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("helper search failed", e.getCause());
+			}
+
+		// the root has always been expanded by the first playout
+		Tree t     = tree;
+		int  first = t.first.get(0);
+		int  best  = first;
+		for (int c = first + 1; c < first + t.count[0]; c++)
+			if (t.visits.get(c) > t.visits.get(best))
+				best = c;
+		return Location.of(t.move[best]);
+	}
+
+	/**
+	 * Make board the root of the tree: keep the part of the tree under board
+	 * if board can be reached from the previous root, and start a new tree
+	 * otherwise.
+	 */
+	private void moveRoot(Board board) {
+		int node = root == null ? -1 : find(root, board);
+		if (node > 0)
+			copy(node);
+		// if most of the tree is kept, there may not be room to grow it
+		if (node < 0 || tree.size.get() > capacity / 2)
+			tree.clear();
+		reused = tree.size.get() - 1;
+		root   = board;
+	}
+
+	/**
+	 * Return the node of the tree for to, where from is the board at the root
+	 * of the tree, or -1 if there is none.
+	 */
+	private int find(Board from, Board to) {
+		if (from.getGeometry() != to.getGeometry())
+			return -1;
+
+		// the marks added since from, by player
+		List<Integer> mine = new ArrayList<>(), theirs = new ArrayList<>();
+		for (int cell : to.getGeometry().cells()) {
+			Player before = from.get(cell), after = to.get(cell);
+			if (before != null && before != after)
+				return -1;
+			if (before == null && after != null)
+				(after == me ? mine : theirs).add(cell);
+		}
+		if (mine.size() != theirs.size())
+			return -1;
+
+		// follow the added marks down the tree, mine and theirs in turn (if
+		// they could have been played in another order, this finds one of the
+		// nodes for to)
+		Tree t     = tree;
+		int  node  = 0;
+		int  added = 2 * mine.size();
+		for (int i = 0; i < added; i++) {
+			List<Integer> moves = i % 2 == 0 ? mine : theirs;
+			int first = t.first.get(node);
+			if (first < 0)
+				return -1;
+			int next = -1;
+			for (int c = first; c < first + t.count[node] && next < 0; c++)
+				if (moves.contains((int) t.move[c]))
+					next = c;
+			if (next < 0)
+				return -1;
+			moves.remove(Integer.valueOf(t.move[next]));
+			node = next;
+		}
+		return node;
+	}
+
+	/** Copy the subtree under node into spare, as its root, and swap the trees. */
+	private void copy(int node) {
+		Tree from = tree;
+		Tree to   = spare == null ? new Tree(capacity) : spare;
+
+		// the children of each node are copied as soon as the node is, so they
+		// are still consecutive; until a node is copied, its first holds its
+		// number in from
+		to.size.set(1);
+		to.first.set(0, node);
+		for (int i = 0; i < to.size.get(); i++) {
+			int old   = to.first.get(i);
+			int first = from.first.get(old);
+			int n     = first < 0 ? 0 : from.count[old];
+			to.move[i]  = from.move[old];
+			to.count[i] = (short) n;
+			to.visits.set(i, from.visits.get(old));
+			to.wins.set(i, from.wins.get(old));
+			if (n == 0)
+				to.first.set(i, UNEXPANDED);
+			else {
+				int at = to.size.getAndAdd(n);
+				for (int k = 0; k < n; k++)
+					to.first.set(at + k, first + k);
+				to.first.set(i, at);
+			}
+		}
+		spare = from;
+		tree  = to;
+	}
+
+	/**
+	 * The nodes of a search tree, in arrays indexed by node number; node 0 is
+	 * the root.  The children of an expanded node are numbered first to
+	 * first + count - 1.  first is UNEXPANDED for nodes without children, and
+	 * EXPANDING while a thread is adding them (or if there was no room).
+	 */
+	private static class Tree {
+		final short[]            move;   // the cell played to reach each node
+		final short[]            count;  // the number of children
+		final AtomicIntegerArray first;  // the first child
+		final AtomicIntegerArray visits; // the playouts through each node
+
+		// 2 for each playout won by the player who played the node's move, and
+		// 1 for each draw
+		final AtomicIntegerArray wins;
+
+		final AtomicInteger size = new AtomicInteger();
+		final int           capacity;
+
+		Tree(int capacity) {
+			this.capacity = capacity;
+			this.move     = new short[capacity];
+			this.count    = new short[capacity];
+			this.first    = new AtomicIntegerArray(capacity);
+			this.visits   = new AtomicIntegerArray(capacity);
+			this.wins     = new AtomicIntegerArray(capacity);
+			clear();
+		}
+
+		/** Remove every node but an unexpanded root. */
+		void clear() {
+			size.set(1);
+			move[0]  = NO_MOVE;
+			count[0] = 0;
+			first.set(0, UNEXPANDED);
+			visits.set(0, 0);
+			wins.set(0, 0);
+		}
+
+		/** Reserve n consecutive nodes, and return the first, or -1 if there is no room. */
+		int allocate(int n) {
+			int at;
+			do {
+				at = size.get();
+				if (at + n > capacity)
+					return -1;
+			} while (!size.compareAndSet(at, at + n));
+			return at;
+		}
+	}
+
+	/**
+	 * A Worker plays playouts on one thread, with its own board, random
+	 * numbers and buffers.
+	 */
+	private class Worker implements Runnable {
+		private final int        id;
+		private SearchBoard      board;  // the board at the root
+		private SplittableRandom random;
+
+		private final int[] path       = new int[Geometry.NUM_INDICES]; // the nodes walked through
+		private final int[] candidates = new int[Geometry.NUM_INDICES]; // the children being added
+		private final int[] empty      = new int[Geometry.NUM_INDICES]; // the empty cells in a playout
+		private final int[] where      = new int[Geometry.NUM_INDICES]; // where each cell is in empty
+
+		Worker(int id) {
+			this.id = id;
+		}
+
+		/** Prepare to search board. */
+		void start(Board board) {
+			this.board  = new SearchBoard(board, me);
+			this.random = new SplittableRandom(seed + id);
+		}
+
+		/** Play playouts until the time or playout limit is reached. */
+		public @Override void run() {
+			do {
+				simulate();
+			} while (!stop && (playoutLimit == 0 || playouts.get() < playoutLimit)
+			               && (deadline == 0 || System.nanoTime() - deadline < 0));
+		}
+
+		/** Walk down the tree, play out the game, and record the result. */
+		private void simulate() {
+			Tree        t    = tree;
+			SearchBoard b    = board;
+			int         node = 0;
+			int         n    = 0;
+			t.visits.incrementAndGet(0);
+			while (b.getState() == State.NOT_OVER) {
+				int first = t.first.get(node);
+				if (first == UNEXPANDED && (node == 0 || t.visits.get(node) > EXPAND_VISITS)
+				    && t.first.compareAndSet(node, UNEXPANDED, EXPANDING))
+					first = expand(t, node, b);
+				if (first < 0)
+					break;
+
+				node = select(t, node, first);
+				t.visits.incrementAndGet(node); // a loss until the result is added
+				b.play(t.move[node]);
+				path[n++] = node;
+			}
+
+			Player winner = playout(b, n > 1 ? t.move[path[n - 2]] : NO_MOVE,
+			                           n > 0 ? t.move[path[n - 1]] : NO_MOVE);
+			playouts.incrementAndGet();
+
+			// the even-numbered nodes on the path are my moves
+			for (int i = 0; i < n; i++) {
+				Player mover = i % 2 == 0 ? me : me.opponent();
+				if (winner == null)
+					t.wins.addAndGet(path[i], 1);
+				else if (winner == mover)
+					t.wins.addAndGet(path[i], 2);
+			}
+			for (int i = 0; i < n; i++)
+				b.undo();
+		}
+
+		/**
+		 * Add the children of node, whose board is b, to t, and return the
+		 * first one, or -1 if there is no room.
+		 */
+		private int expand(Tree t, int node, SearchBoard b) {
+			Geometry g = b.getGeometry();
+			int n = 0;
+			for (int cell : g.cells())
+				if (b.get(cell) == null && hasNeighbor(b, cell))
+					candidates[n++] = cell;
+			if (n == 0)
+				candidates[n++] = g.center().index;
+
+			int first = t.allocate(n);
+			if (first < 0)
+				return -1; // node stays EXPANDING, so nobody tries again
+			for (int i = 0; i < n; i++) {
+				t.move[first + i]  = (short) candidates[i];
+				t.count[first + i] = 0;
+				t.first.set(first + i, UNEXPANDED);
+				t.visits.set(first + i, 0);
+				t.wins.set(first + i, 0);
+			}
+			t.count[node] = (short) n;
+			t.first.set(node, first); // publishes the children to other threads
+			return first;
+		}
+
+		/** Return the child of node with the highest upper confidence bound. */
+		private int select(Tree t, int node, int first) {
+			double log       = Math.log(t.visits.get(node));
+			int    best      = first;
+			double bestValue = -1;
+			for (int c = first; c < first + t.count[node]; c++) {
+				int visits = t.visits.get(c);
+				if (visits == 0)
+					return c;
+				double value = t.wins.get(c) / (2.0 * visits)
+				             + EXPLORATION * Math.sqrt(log / visits);
+				if (value > bestValue) {
+					best      = c;
+					bestValue = value;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Play moves on b until the game is over, take them back, and return
+		 * the winner, or null for a draw.  last is the cell of the last move
+		 * played on b and prev the one before, or NO_MOVE if they are not known.
+		 */
+		private Player playout(SearchBoard b, int prev, int last) {
+			int start = b.numMoves();
+			int n     = 0;
+			for (int cell : b.getGeometry().cells())
+				if (b.get(cell) == null) {
+					where[cell] = n;
+					empty[n++]  = cell;
+				}
+
+			while (b.getState() == State.NOT_OVER) {
+				int cell = NO_MOVE;
+				if (patterns) {
+					// a five can only have been made possible by the last moves
+					cell = five(b, b.nextTurn(), prev);
+					if (cell == NO_MOVE)
+						cell = five(b, b.nextTurn().opponent(), last);
+				}
+				if (cell == NO_MOVE) {
+					cell = empty[random.nextInt(n)];
+					for (int i = 1; patterns && i < TRIES && !hasNeighbor(b, cell); i++)
+						cell = empty[random.nextInt(n)];
+				}
+
+				int i = where[cell];
+				empty[i] = empty[--n];
+				where[empty[i]] = i;
+				b.play(cell);
+				prev = last;
+				last = cell;
+			}
+
+			Player winner = b.getState() == State.HAS_WINNER ? b.getWinningPlayer() : null;
+			while (b.numMoves() > start)
+				b.undo();
+			return winner;
+		}
+
+		/**
+		 * Return the empty cell of a line through cell in which p has all the
+		 * other marks, or NO_MOVE if there is none.
+		 */
+		private int five(SearchBoard b, Player p, int cell) {
+			if (cell == NO_MOVE)
+				return NO_MOVE;
+			LineCounts counts = b.getLineCounts();
+			Geometry   g      = b.getGeometry();
+			for (int line : g.linesThrough(cell))
+				if (counts.count(line, p) == Line.SIZE - 1 && counts.count(line, p.opponent()) == 0)
+					for (int c : g.lines().get(line).cells())
+						if (b.get(c) == null)
+							return c;
+			return NO_MOVE;
+		}
+
+		/** Return true if one of the neighbors of cell has been played. */
+		private boolean hasNeighbor(SearchBoard b, int cell) {
+			for (int n : b.getGeometry().neighbors(cell))
+				if (b.get(n) != null)
+					return true;
+			return false;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.Position;
+import model.Symmetry;
+
+/**
+ * An OpeningBook holds the best moves for positions that occur early in
+ * games, so that they can be looked up instead of searched for.  Books are
+ * made by {@link BookBuilder}, and read with {@link #load(Path)}.
+ *
+ * <p>Positions that are rotations or reflections of each other (see
+ * {@link Symmetry}) share a single entry, keyed by their canonical key and
+ * the player to move (so that the book gives the right move whichever
+ * player started the game); the move is stored for the canonical image of
+ * the position, and mapped back onto the position it is looked up for.
+ *
+ * <p>A book file starts with a header of HEADER bytes (a magic number, the
+ * number of rows and columns of the board, the number of slots, the number
+ * of entries and the version of the format), followed by a hash table with a
+ * power of two number of slots.  Each slot holds a canonical key (a long), the move's cell index
+ * (an int, NO_MOVE if the slot is empty) and the depth it was searched to
+ * (an int).  A position's entry is in the first slot, starting from its key
+ * modulo the number of slots, that is either empty or has its key (or it has
+ * no entry, if no such slot is found after probing every slot).  The file
+ * is mapped into memory rather than read, so looking up a move touches only
+ * the slots it probes.
+ *
+ * <p>OpeningBooks are immutable, and may be shared between AIs and threads.
+ */
+public class OpeningBook {
+
+	/** The value returned by {@link #move(Position)} for positions not in the book. */
+	public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+
+	/** The number of bytes in the header of a book file. */
+	public static final int HEADER = 32;
+
+	/** The number of bytes in each slot of a book file. */
+	public static final int SLOT = 16;
+
+	private static final int MAGIC = 0x474D4B42; // "GMKB"
+
+	// the version of the file format; version 0 books did not key entries by
+	// the player to move
+	private static final int VERSION = 1;
+
+	private final ByteBuffer data;     // the contents of the book file
+	private final Geometry   geometry; // the board the book is for
+	private final int        mask;     // the number of slots - 1
+	private final int        size;     // the number of entries
+
+	/**
+	 * Return the book read from the given file.
+	 * @throws IOException if the file cannot be read, is not a book, or is a
+	 *         book in an older format (which must be built again).
+	 */
+	public static @NonNull OpeningBook load(@NonNull Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/** Return the file where BookBuilder writes the book for g by default. */
+	public static @NonNull Path file(@NonNull Geometry g) {
+		return Paths.get("books", g + ".book");
+	}
+
+	/**
+	 * Return the book in file(g), or null if there is no such file or it
+	 * cannot be read.
+	 */
+	public static OpeningBook find(@NonNull Geometry g) {
+		Path file = file(g);
+		if (!Files.isReadable(file))
+			return null;
+		try {
+			OpeningBook result = load(file);
+			return result.geometry == g ? result : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private OpeningBook(ByteBuffer data) throws IOException {
+		if (data.capacity() < HEADER || data.getInt(0) != MAGIC)
+			throw new IOException("not an opening book");
+		int rows  = data.getInt(4), cols = data.getInt(8);
+		int slots = data.getInt(12);
+		if (rows < 1 || rows > Geometry.MAX_ROWS || cols < 1 || cols > Geometry.MAX_COLS
+		    || Integer.bitCount(slots) != 1 || data.capacity() != HEADER + (long) slots * SLOT)
+			throw new IOException("corrupt opening book");
+		if (data.getInt(20) != VERSION)
+			throw new IOException("unsupported opening book version " + data.getInt(20));
+
+		this.data     = data;
+		this.geometry = Geometry.of(rows, cols);
+		this.mask     = slots - 1;
+		this.size     = data.getInt(16);
+	}
+
+	/** Return the geometry of the boards this book is for. */
+	public @NonNull Geometry getGeometry() {
+		return geometry;
+	}
+
+	/** Return the number of positions in the book. */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the cell index of the book move for p on b, or NO_MOVE if b with
+	 * p to move is not in the book (or is for a different size of board).
+	 */
+	public int move(@NonNull Position b, @NonNull Player p) {
+		if (b.getGeometry() != geometry)
+			return NO_MOVE;
+		int s    = Symmetry.canonical(b);
+		int slot = find(Symmetry.key(b, s, p));
+		if (slot < 0)
+			return NO_MOVE;
+		return Symmetry.apply(geometry, Symmetry.inverse(s), data.getInt(slot + 8));
+	}
+
+	/** Return the book move for p on b, or null if it is not in the book. */
+	public Location lookup(@NonNull Position b, @NonNull Player p) {
+		int move = move(b, p);
+		return move == NO_MOVE ? null : Location.of(move);
+	}
+
+	/**
+	 * Return the depth to which the book move for p on b was searched, or -1
+	 * if it is not in the book.
+	 */
+	public int depth(@NonNull Position b, @NonNull Player p) {
+		if (b.getGeometry() != geometry)
+			return -1;
+		int slot = find(Symmetry.canonicalKey(b, p));
+		return slot < 0 ? -1 : data.getInt(slot + 12);
+	}
+
+	/** Return the offset of the slot for the given canonical key, or -1 if there is none. */
+	private int find(long key) {
+		// a full (or corrupt) book has no empty slot to stop at
+		for (int i = (int) key & mask, probes = 0; probes <= mask; i = i + 1 & mask, probes++) {
+			int slot = HEADER + i * SLOT;
+			if (data.getInt(slot + 8) == NO_MOVE)
+				return -1;
+			if (data.getLong(slot) == key)
+				return slot;
+		}
+		return -1;
+	}
+
+	/**
+	 * A Builder collects the entries of a book.  Builders are thread safe, so
+	 * several searches may add to the same one.
+	 */
+	public static class Builder {
+		private final Geometry geometry;
+
+		// the move and depth for each canonical key, in canonical coordinates
+		private final Map<Long, int[]> entries = new LinkedHashMap<>();
+
+		/** Create an empty book for boards with geometry g. */
+		public Builder(@NonNull Geometry g) {
+			this.geometry = g;
+		}
+
+		/**
+		 * Record that move is the best move for p on b, found by searching
+		 * depth moves ahead.  If b (or one of its images) with p to move is
+		 * already in the book, the deeper search is kept.
+		 *
+		 * @throws IllegalArgumentException if b is for another size of board.
+		 */
+		public synchronized void add(@NonNull Position b, @NonNull Player p,
+		                             @NonNull Location move, int depth)
+		                        throws IllegalArgumentException
+		{
+			if (b.getGeometry() != geometry)
+				throw new IllegalArgumentException("book is for " + geometry + " boards");
+			int   s   = Symmetry.canonical(b);
+			long  key = Symmetry.key(b, s, p);
+			int[] old = entries.get(key);
+			if (old == null || old[1] < depth)
+				entries.put(key, new int[] { Symmetry.apply(geometry, s, move.index), depth });
+		}
+
+		/** Return the number of positions added so far. */
+		public synchronized int size() {
+			return entries.size();
+		}
+
+		/** Return a book (held in memory) with the entries added so far. */
+		public synchronized @NonNull OpeningBook build() {
+			int slots = 16;
+			while (slots < 2 * entries.size())
+				slots *= 2;
+
+			ByteBuffer data = ByteBuffer.allocate(HEADER + slots * SLOT);
+			data.putInt(0, MAGIC);
+			data.putInt(4, geometry.rows);
+			data.putInt(8, geometry.cols);
+			data.putInt(12, slots);
+			data.putInt(16, entries.size());
+			data.putInt(20, VERSION);
+			for (int i = 0; i < slots; i++)
+				data.putInt(HEADER + i * SLOT + 8, NO_MOVE);
+
+			for (Map.Entry<Long, int[]> e : entries.entrySet()) {
+				long key = e.getKey();
+				int  i   = (int) key & slots - 1;
+				while (data.getInt(HEADER + i * SLOT + 8) != NO_MOVE)
+					i = i + 1 & slots - 1;
+				data.putLong(HEADER + i * SLOT, key);
+				data.putInt(HEADER + i * SLOT + 8, e.getValue()[0]);
+				data.putInt(HEADER + i * SLOT + 12, e.getValue()[1]);
+			}
+			try {
+				return new OpeningBook(data);
+			} catch (IOException e) {
+				throw new AssertionError(e); // the header was just written
+			}
+		}
+
+		/**
+		 * Write a book with the entries added so far to the given file,
+		 * creating its directory if necessary.
+		 * @throws IOException if the file cannot be written.
+		 */
+		public void write(@NonNull Path file) throws IOException {
+			ByteBuffer data = build().data;
+			if (file.getParent() != null)
+				Files.createDirectories(file.getParent());
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+			                                            StandardOpenOption.WRITE,
+			                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+				data.rewind();
+				while (data.hasRemaining())
+					channel.write(data);
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package controller;
+
+import model.LineCodes;
+import model.Player;
+import model.Position;
+import model.SearchBoard;
+
+/**
+ * A PatternAI is a SmartAI that evaluates boards by recognizing the
+ * patterns that matter in five-in-a-row, instead of counting marks in lines.
+ *
+ * <p>Every window of {@link LineCodes#WINDOW} adjacent cells along a row,
+ * column or diagonal is classified, for each player, as the best of the
+ * following patterns that it contains (where "_" is an empty cell, "P" is
+ * one of the player's marks, and the player's opponent and the edge of the
+ * board block a pattern):
+ *
+ * <table><tr><th> Pattern    </th> <th> Example             </th> <th> Score  </th></tr>
+ *        <tr><td> five       </td> <td> <tt>PPPPP</tt>      </td> <td> 100000 </td></tr>
+ *        <tr><td> open four  </td> <td> <tt>_PPPP_</tt>     </td> <td> 10000  </td></tr>
+ *        <tr><td> four       </td> <td> <tt>PP_PP</tt>      </td> <td> 600    </td></tr>
+ *        <tr><td> open three </td> <td> <tt>_PP_P_</tt>     </td> <td> 500    </td></tr>
+ *        <tr><td> three      </td> <td> <tt>PPP__</tt>      </td> <td> 100    </td></tr>
+ *        <tr><td> open two   </td> <td> <tt>__PP__</tt>     </td> <td> 30     </td></tr>
+ *        <tr><td> two        </td> <td> <tt>P_P__</tt>      </td> <td> 10     </td></tr>
+ *        <tr><td> one        </td> <td> <tt>P____</tt>      </td> <td> 1      </td></tr>
+ * </table>
+ *
+ * <p>"Open" patterns have empty cells at both ends of the window, so that
+ * unlike the other kinds they cannot be blocked with a single move; the
+ * four and three include split patterns such as <tt>PP_PP</tt> and
+ * <tt>P_PP_</tt>.  The score of a board for me is the sum over all windows
+ * of my score minus my opponent's, except that the player who moves next
+ * has their sum increased by a quarter, since they get to extend their
+ * patterns (or block their opponent's) first.
+ *
+ * <p>The score for each possible window is computed once, and stored in a
+ * table indexed by the window's code, so that scoring a window is a single
+ * array lookup.  While searching, the sum is kept up to date by the
+ * SearchBoard's LineCodes, so each evaluation takes constant time.
+ *
+ * <p>PatternAI is not faster per evaluation than SmartAI: since SmartAI's
+ * line sums are also kept up to date incrementally, a leaf costs roughly
+ * twice as much here (about 0.3us against 0.15us; see PatternBenchmark).
+ * What it buys is a finer evaluation, which wins more games than it loses
+ * against SmartAI at equal time per move.
+ */
+public class PatternAI extends SmartAI {
+
+	/** Pattern scores */
+	public static final int ONE        = 1,
+	                        TWO        = 10,
+	                        OPEN_TWO   = 30,
+	                        THREE      = 100,
+	                        OPEN_THREE = 500,
+	                        FOUR       = 600,
+	                        OPEN_FOUR  = 10000,
+	                        FIVE       = 100000;
+
+	/** The player to move has their sum increased by 1/TEMPO. */
+	private static final int TEMPO = 4;
+
+	/** The score of each kind of unblocked 5-cell line, by number of marks. */
+	private static final int[] LINE_PATTERNS = { 0, ONE, TWO, THREE, FOUR, FIVE };
+
+	/** PATTERNS[p][w] is player p's score for the window with code w. */
+	private static final int[][] PATTERNS = new int[2][LineCodes.NUM_CODES];
+
+	static {
+		int[] cells = new int[LineCodes.WINDOW];
+		for (int w = 0; w < LineCodes.NUM_CODES; w++) {
+			for (int i = 0; i < cells.length; i++)
+				cells[i] = w >>> 2 * i & 3;
+			PATTERNS[0][w] = score(cells, LineCodes.X);
+			PATTERNS[1][w] = score(cells, LineCodes.O);
+		}
+	}
+
+	public PatternAI(Player me) {
+		super(me);
+	}
+
+	/** Create a PatternAI that searches depth moves ahead. */
+	public PatternAI(Player me, int depth) {
+		super(me, depth);
+	}
+
+	public @Override int estimate(Position b) {
+		LineCodes codes = b instanceof SearchBoard ? ((SearchBoard) b).getLineCodes()
+		                                           : new LineCodes(b);
+		int mine   = codes.windowSum(PATTERNS[me.ordinal()]);
+		int theirs = codes.windowSum(PATTERNS[me.opponent().ordinal()]);
+
+		// the player to move gets to extend their patterns first
+		if (b instanceof SearchBoard) {
+			if (((SearchBoard) b).nextTurn() == me)
+				mine   += mine   / TEMPO;
+			else
+				theirs += theirs / TEMPO;
+		}
+		return mine - theirs;
+	}
+
+	/** Return the score of the window with the given cells for player p. */
+	private static int score(int[] w, int p) {
+		// the best 5-cell line in the window that p's opponent has not blocked
+		int best = 0;
+		for (int start = 0; start + 5 <= w.length; start++) {
+			int     count   = 0;
+			boolean blocked = false;
+			for (int i = start; i < start + 5; i++)
+				if (w[i] == p)
+					count++;
+				else if (w[i] != LineCodes.EMPTY)
+					blocked = true;
+			if (!blocked)
+				best = Math.max(best, LINE_PATTERNS[count]);
+		}
+		if (best == FIVE)
+			return FIVE;
+
+		// open patterns: empty at both ends, and nothing blocking inside
+		if (w[0] == LineCodes.EMPTY && w[w.length - 1] == LineCodes.EMPTY) {
+			int count = 0;
+			for (int i = 1; i < w.length - 1; i++)
+				if (w[i] == p)
+					count++;
+				else if (w[i] != LineCodes.EMPTY)
+					return best;
+			if (count == 4)
+				return OPEN_FOUR;
+			if (count == 3)
+				best = Math.max(best, OPEN_THREE);
+			if (count == 2)
+				best = Math.max(best, OPEN_TWO);
+		}
+		return best;
+	}
+}
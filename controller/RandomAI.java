@@ -23,7 +23,7 @@ public class RandomAI extends Controller {
 		List<Location> available = new ArrayList<Location>();
 		
 		// find available moves
-		for (Location loc : Board.LOCATIONS)
+		for (Location loc : g.getBoard().getGeometry().locations())
 			if (g.getBoard().get(loc) == null)
 				available.add(loc);
 		
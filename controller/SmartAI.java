@@ -3,23 +3,55 @@ package controller;
 import java.util.ArrayList;
 import java.util.Collections;
 
-import model.Board;
+import model.Frontier;
 import model.Line;
+import model.LineCounts;
 import model.Location;
 import model.Player;
+import model.Position;
+import model.SearchBoard;
 
 /**
  * The SmartAI uses min-max search with reasonable heuristics to choose
  * the next move to make.
  *
  * <p>This implementation uses a search depth of 4, only places moves adjacent
- * to moves that have already been played, and uses a reasonable heuristic
+ * to moves that have already been played (or, with {@link #setRadius(int)},
+ * within some other distance of them), and uses a reasonable heuristic
  * measure of goodness (described below).
  */
 public class SmartAI extends MinMaxAI {
 
+	/** LINE_SCORES[n] is the score for a winnable line with n of my marks. */
+	private static final int[] LINE_SCORES = { 0, 1, 10, 100, 1000, 10000 };
+
+	/** The size (in megabytes) of a SmartAI's transposition table. */
+	public static final int TABLE_SIZE = 8;
+
+	/** The time limit (in milliseconds) used by the user interfaces' SmartAIs. */
+	public static final long MOVE_TIME = 1000;
+
+	private int radius = 1; // the distance from played moves of the moves searched
+
 	public SmartAI(Player me) {
-		super(me, 3);
+		this(me, 3);
+	}
+
+	/**
+	 * Create a SmartAI that searches as deeply as it can in about millis
+	 * milliseconds per move (see {@link MinMaxAI#setTimeLimit(long)}).
+	 */
+	public static SmartAI withTimeLimit(Player me, long millis) {
+		SmartAI result = new SmartAI(me);
+		result.setTimeLimit(millis);
+		return result;
+	}
+
+	/** Create a SmartAI that searches depth moves ahead. */
+	public SmartAI(Player me, int depth) {
+		super(me, depth);
+		setTranspositionTable(new TranspositionTable(TABLE_SIZE,
+		                                             TranspositionTable.Replacement.TWO_TIER));
 	}
 
 	
@@ -60,15 +92,17 @@ public class SmartAI extends MinMaxAI {
 	 * opponent's
 	 */
 	@Override
-	public int estimate(Board b) {
+	public int estimate(Position b) {
 		return score(b,me) - score(b,me.opponent());
 	}
 	
 	/** return the positive score for player p */
-	public int score(Board b, Player p) {
+	public int score(Position b, Player p) {
+		if (b instanceof SearchBoard)
+			return score(((SearchBoard) b).getLineCounts(), p);
+		
 		int result = 0;
-		int count  = 0;
-		for (Line s : Line.ALL_LINES) {
+		for (Line s : b.getGeometry().lines()) {
 			int score = score(b,p,s);
 			result += score;
 		}
@@ -76,48 +110,112 @@ public class SmartAI extends MinMaxAI {
 	}
 	
 	/** Return the score for player p, for the line s. */
-	public int score(Board b, Player p, Line s) {
+	public int score(Position b, Player p, Line s) {
 		int result = 1;
-		for (Location loc : s) {
-			if (b.get(loc) == p)
+		for (int cell : s.cells()) {
+			if (b.get(cell) == p)
 				result *= 10;
-			if (b.get(loc) == p.opponent())
+			if (b.get(cell) == p.opponent())
 				return 0;
 		}
 		return result/10;
 	}
+	
+	/**
+	 * Return the positive score for player p, using the given line counts.
+	 * The counts keep the score up to date as moves are played and undone, so
+	 * this takes constant time (except for the first call on new counts).
+	 */
+	public int score(LineCounts counts, Player p) {
+		return counts.weightedSum(p, LINE_SCORES);
+	}
 
 	/**
-	 * Return the set of locations that are adjacent to played locations, or
-	 * the center of the board if no moves have been played.
+	 * Only search moves within the given distance (horizontally, vertically
+	 * or diagonally) of moves that have already been played.  The default is
+	 * 1, which only searches moves adjacent to played moves; a radius of 2
+	 * also finds moves that extend a line with a gap, at the cost of searching
+	 * about three times as many moves.
+	 *
+	 * @throws IllegalArgumentException if radius is not between 1 and
+	 *         Frontier.MAX_RADIUS.
 	 */
-	public @Override Iterable<Location> moves(Board b) {
+	public void setRadius(int radius) throws IllegalArgumentException {
+		if (radius < 1 || radius > Frontier.MAX_RADIUS)
+			throw new IllegalArgumentException("invalid move radius: " + radius);
+		this.radius = radius;
+	}
+
+	/** Return the distance from played moves of the moves searched. */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Return the set of locations that are within getRadius() of played
+	 * locations (adjacent to them, by default), or the center of the board if
+	 * no moves have been played.
+	 */
+	public @Override Iterable<Location> moves(Position b) {
+		Frontier frontier = b instanceof SearchBoard ? ((SearchBoard) b).getFrontier(radius)
+		                                             : new Frontier(b, radius);
+		int[] cells = new int[frontier.size()];
+		frontier.cells(cells);
+
 		ArrayList<Location> result = new ArrayList<>();
-		for (Location loc : Board.LOCATIONS)
-			if (reasonableMove(b,loc))
-				result.add(loc);
-		
+		for (int cell : cells)
+			result.add(Location.of(cell));
 		if (result.isEmpty())
-			return Collections.singleton(new Location(Board.NUM_ROWS/2, Board.NUM_COLS/2));
+			return Collections.singleton(b.getGeometry().center());
+		return result;
+	}
+
+	/**
+	 * Like moves(b), but without creating objects (see
+	 * {@link MinMaxAI#moves(SearchBoard, int[])}): the moves are read from the
+	 * board's frontier, which is kept up to date as moves are played and undone.
+	 */
+	protected @Override int moves(SearchBoard b, int[] result) {
+		int n = b.getFrontier(radius).cells(result);
+		if (n == 0)
+			result[n++] = b.getGeometry().center().index;
+		return n;
+	}
+
+	/**
+	 * A move is given a high priority if it extends the lines of the player
+	 * to move, or blocks the lines of their opponent: it scores the lines
+	 * through the cell as if each player had played there, using the line
+	 * scores described above.
+	 */
+	protected @Override int priority(SearchBoard b, int cell) {
+		LineCounts counts = b.getLineCounts();
+		Player     mover  = b.nextTurn();
+		int        result = 0;
+		for (int line : b.getGeometry().linesThrough(cell)) {
+			int mine   = counts.count(line, mover);
+			int theirs = counts.count(line, mover.opponent());
+			if (theirs == 0)
+				result += LINE_SCORES[mine + 1];
+			else if (mine == 0)
+				result += LINE_SCORES[theirs + 1];
+		}
 		return result;
 	}
 
 	/** Returns true iff loc is empty and has a neighbor. */
-	public boolean reasonableMove(Board b, Location loc) {
-		if (b.get(loc) != null)
+	public boolean reasonableMove(Position b, Location loc) {
+		return reasonableMove(b, loc.index);
+	}
+
+	/** Returns true iff the cell with the given index is empty and has a neighbor. */
+	public boolean reasonableMove(Position b, int cell) {
+		if (b.get(cell) != null)
 			return false;
-		for (int dr = -1; dr <= 1; dr++)
-			for (int dc = -1; dc <= 1; dc++)
-				if (isPlayed(b,loc.row+dr,loc.col+dc))
-					return true;
+		for (int n : b.getGeometry().neighbors(cell))
+			if (b.get(n) != null)
+				return true;
 		return false;
 	}
 	
-	/** Returns true iff (r,c) is in bounds and b(r,c) is non-null */
-	private boolean isPlayed(Board b, int r, int c) {
-		return 0 <= r && r < Board.NUM_ROWS
-		    && 0 <= c && c < Board.NUM_COLS
-		    && b.get(r,c) != null;
-	}
-	
 }
@@ -0,0 +1,288 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Geometry;
+import model.Position;
+import model.SearchBoard;
+import model.Symmetry;
+
+/**
+ * A SolvedCache remembers positions whose outcome has been proven by a
+ * search, in a file, so that they do not have to be solved again by later
+ * searches, later games, or later runs of the program.  Unlike a
+ * {@link TranspositionTable}, whose scores depend on the AI's estimates, the
+ * results in a SolvedCache must be facts about the game, so that a cache may
+ * be shared by all AIs.  Only results that hold whatever the opponent plays
+ * may be stored: a win found by a {@link ThreatSolver} is one, but a win
+ * found by a search that only looks at some of the moves (such as SmartAI's
+ * moves near the marks already played) is not.
+ *
+ * <p>Each entry records the result for the player to move (WIN, LOSS or
+ * DRAW), the best move, and the depth of the search that proved it.
+ * Positions that are rotations or reflections of each other (see
+ * {@link Symmetry}) share an entry, keyed by their canonical key, the player
+ * to move and the size of the board (so that one cache can serve boards of
+ * every size), and the move is stored for the canonical image.
+ *
+ * <p>The file starts with a header of HEADER bytes (a magic number, the
+ * number of buckets and the version of the format), followed by the buckets.  Each bucket holds BUCKET
+ * entries of two longs (the canonical key XORed with the packed entry, as in
+ * TranspositionTable, and the packed entry).  The file is mapped into memory
+ * for reading and writing, and its size never changes: when a position's
+ * bucket is full, the entry with the shallowest proof is evicted to make
+ * room for a new one.  A file written in an older format is emptied when it
+ * is opened, since its entries cannot be trusted.
+ *
+ * <p>Entries are looked up with probe(...), which returns the packed entry
+ * (or 0 if the position has not been solved); the fields can then be
+ * extracted with result(...), depth(...) and move(...).  Like a
+ * TranspositionTable, a SolvedCache may be used by several threads without
+ * locking.  Changes are written to the file by the operating system; call
+ * {@link #flush()} to make sure they have been.
+ */
+public class SolvedCache {
+
+	/** Results, for the player to move. */
+	public static final int WIN = 1, LOSS = 2, DRAW = 3;
+
+	/** The value returned by move(...) if there is no best move. */
+	public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+
+	/** The largest proof depth that can be stored. */
+	public static final int MAX_DEPTH = 0xFFFF;
+
+	/** The number of bytes in the header of a cache file. */
+	public static final int HEADER = 16;
+
+	/** The number of entries in each bucket. */
+	public static final int BUCKET = 4;
+
+	/** The size (in megabytes) of the cache used by the user interfaces. */
+	public static final int DEFAULT_SIZE = 64;
+
+	private static final int ENTRY = 16; // bytes per entry
+	private static final int MAGIC = 0x474D4B53; // "GMKS"
+
+	// the version of the file format; version 0 files did not key entries by
+	// the player to move, and stored wins found by full-width searches, and
+	// version 1 files did not key them by the size of the board
+	private static final int VERSION = 2;
+
+	// multiplied by the size of the board, and xored into the keys
+	private static final long GEOMETRY = 0x9E3779B97F4A7C15L;
+
+	// layout of the packed entries:
+	//   bits  0-15: best move (cell index in the canonical image), plus 1
+	//   bits 16-31: depth
+	//   bits 32-33: result
+	//   bit     63: set in every entry, so that empty slots are 0
+	private static final long VALID = 1L << 63;
+
+	private final MappedByteBuffer data;
+	private final int              mask; // the number of buckets - 1
+
+	private long probes, hits, stores;
+
+	/**
+	 * Return the cache in the given file, creating the file (and its
+	 * directory) with (at most) the given number of megabytes if it does not
+	 * exist.  An existing file keeps its size (and its entries, unless it is
+	 * in an older format).
+	 *
+	 * @throws IOException if the file cannot be read or written, or is not a
+	 *         cache.
+	 * @throws IllegalArgumentException if megabytes is not positive or is too
+	 *         large.
+	 */
+	public static @NonNull SolvedCache open(@NonNull Path file, int megabytes)
+	                     throws IOException, IllegalArgumentException
+	{
+		if (megabytes <= 0 || megabytes > 1024)
+			throw new IllegalArgumentException("invalid cache size: " + megabytes + "MB");
+
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+		                                            StandardOpenOption.READ,
+		                                            StandardOpenOption.WRITE)) {
+			boolean created = channel.size() == 0;
+			long    size    = channel.size();
+			if (created) {
+				// round the number of buckets down to a power of two
+				long buckets = Long.highestOneBit(megabytes * (1L << 20) / (BUCKET * ENTRY));
+				size = HEADER + buckets * BUCKET * ENTRY;
+			}
+
+			// mapping past the end of the file extends it (with zeros), and the
+			// mapping stays valid after the channel is closed
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if (created) {
+				data.putInt(0, MAGIC);
+				data.putInt(4, (int) ((size - HEADER) / (BUCKET * ENTRY)));
+				data.putInt(8, VERSION);
+			}
+			SolvedCache result = new SolvedCache(data);
+			if (data.getInt(8) != VERSION) {
+				// the entries of older formats cannot be trusted
+				for (int at = HEADER; at < data.capacity(); at += 8)
+					data.putLong(at, 0);
+				data.putInt(8, VERSION);
+			}
+			return result;
+		}
+	}
+
+	/** Return the file of the cache used by the user interfaces. */
+	public static @NonNull Path file() {
+		return Paths.get("cache", "solved.cache");
+	}
+
+	/**
+	 * Return the cache in file(), creating it with DEFAULT_SIZE megabytes if
+	 * necessary, or null if it cannot be opened.
+	 */
+	public static SolvedCache openDefault() {
+		try {
+			return open(file(), DEFAULT_SIZE);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private SolvedCache(MappedByteBuffer data) throws IOException {
+		int buckets = data.capacity() < HEADER ? 0 : data.getInt(4);
+		if (data.capacity() < HEADER || data.getInt(0) != MAGIC)
+			throw new IOException("not a solved position cache");
+		if (Integer.bitCount(buckets) != 1
+		    || data.capacity() != HEADER + (long) buckets * BUCKET * ENTRY)
+			throw new IOException("corrupt solved position cache");
+		this.data = data;
+		this.mask = buckets - 1;
+	}
+
+	/**
+	 * Return the packed entry for b (or one of its symmetric images, with the
+	 * same player to move), or 0 if b has not been solved.
+	 */
+	public long probe(@NonNull SearchBoard b) {
+		probes++;
+		long key    = key(b, Symmetry.canonical(b));
+		int  bucket = bucket(key);
+		for (int i = 0; i < BUCKET; i++) {
+			int  at    = bucket + i * ENTRY;
+			long entry = data.getLong(at + 8);
+			if (entry != 0 && (data.getLong(at) ^ entry) == key) {
+				hits++;
+				return entry;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Record that the player to move on b has the given result (WIN, LOSS or
+	 * DRAW), proven by a search depth moves deep, and that move (a cell index
+	 * on b, or NO_MOVE) is their best move.  A shallower proof of the same
+	 * position does not replace a deeper one.  The result must be a proof
+	 * (see above), not just the outcome of a search.
+	 */
+	public void store(@NonNull SearchBoard b, int result, int depth, int move) {
+		stores++;
+		int  s     = Symmetry.canonical(b);
+		long key   = key(b, s);
+		int  image = move == NO_MOVE ? NO_MOVE : Symmetry.apply(b.getGeometry(), s, move);
+		long entry = VALID
+		           | (long) result << 32
+		           | (long) Math.min(depth, MAX_DEPTH) << 16
+		           | image + 1;
+
+		// use the position's own entry, or else an empty one, or else evict the
+		// shallowest
+		int bucket = bucket(key);
+		int victim = -1;
+		for (int i = 0; i < BUCKET; i++) {
+			int  at  = bucket + i * ENTRY;
+			long old = data.getLong(at + 8);
+			if (old != 0 && (data.getLong(at) ^ old) == key) {
+				if (depth(old) > depth)
+					return;
+				victim = at;
+				break;
+			}
+			if (victim < 0 || old == 0 && data.getLong(victim + 8) != 0
+			               || old != 0 && depth(old) < depth(data.getLong(victim + 8)))
+				victim = at;
+		}
+		data.putLong(victim, key ^ entry);
+		data.putLong(victim + 8, entry);
+	}
+
+	/** Return the result of a packed entry (for the player to move): WIN, LOSS or DRAW. */
+	public static int result(long entry) {
+		return (int) (entry >>> 32) & 3;
+	}
+
+	/** Return the depth of the search that proved a packed entry. */
+	public static int depth(long entry) {
+		return (int) (entry >>> 16) & 0xFFFF;
+	}
+
+	/**
+	 * Return the best move (a cell index on b) of the packed entry found by
+	 * probe(b), or NO_MOVE.
+	 */
+	public static int move(@NonNull Position b, long entry) {
+		int image = ((int) entry & 0xFFFF) - 1;
+		if (image == NO_MOVE)
+			return NO_MOVE;
+		return Symmetry.apply(b.getGeometry(), Symmetry.inverse(Symmetry.canonical(b)), image);
+	}
+
+	/** Make sure that all the entries stored so far have been written to the file. */
+	public void flush() {
+		data.force();
+	}
+
+	/** Return the number of entries the cache can hold. */
+	public int capacity() {
+		return (mask + 1) * BUCKET;
+	}
+
+	/** Return the number of calls to probe. */
+	public long getProbes() {
+		return probes;
+	}
+
+	/** Return the number of probes that found their position. */
+	public long getHits() {
+		return hits;
+	}
+
+	/** Return the number of calls to store. */
+	public long getStores() {
+		return stores;
+	}
+
+	/**
+	 * Return the key of the image of b under symmetry s, with b's player to
+	 * move, on a board of b's size.
+	 */
+	private static long key(SearchBoard b, int s) {
+		Geometry g = b.getGeometry();
+		return Symmetry.key(b, s, b.nextTurn()) ^ (g.rows << 8 | g.cols) * GEOMETRY;
+	}
+
+	/** Return the offset of the first entry of the bucket for key. */
+	private int bucket(long key) {
+		return HEADER + ((int) key & mask) * BUCKET * ENTRY;
+	}
+}
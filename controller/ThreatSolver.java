@@ -0,0 +1,176 @@
+package controller;
+
+import model.Board.State;
+import model.Geometry;
+import model.Line;
+import model.LineCounts;
+import model.Player;
+import model.SearchBoard;
+
+/**
+ * A ThreatSolver looks for forced wins made of continuous fours ("VCF", for
+ * victory by continuous fours).
+ *
+ * <p>A four is a move that leaves the attacker one move away from five in a
+ * row, so the defender must block it immediately.  A sequence of fours, each
+ * followed by its forced block, wins if it ends with the attacker making two
+ * fours at once (which cannot both be blocked) or completing a five.  Since
+ * the defender has no choice at any point, such sequences can be searched
+ * much more deeply than the full game tree: wins ten or more moves ahead are
+ * typically found after visiting a few hundred positions.
+ *
+ * <p>The solver also takes the defender's threats into account: if the
+ * defender already has a four, the attacker's next move must block it, and
+ * only continues the sequence if the block is itself a four.
+ *
+ * <p>The search is limited to a given number of nodes (moves played); if the
+ * limit is reached, the solver reports that no win was found.
+ */
+public class ThreatSolver {
+
+	private int nodes;   // nodes visited by the current search
+	private int budget;  // the limit on nodes for the current search
+	private int winPly;  // the ply at which the last win found makes five
+
+	// buffers[2*ply] holds the attacker's fours at ply, and buffers[2*ply+1]
+	// the cells that complete fives; they are created as they are needed
+	private int[][] buffers = new int[0][];
+
+	// stamp[cell] == generation if cell has already been collected by the
+	// current call to cells(...)
+	private final int[] stamp = new int[Geometry.NUM_INDICES];
+	private int         generation;
+
+	/**
+	 * Return the first move of a forced win by continuous fours for
+	 * b.nextTurn(), or TranspositionTable.NO_MOVE if none is found within
+	 * budget nodes.  Completing a five counts as a win.  b is returned to its
+	 * original state.
+	 */
+	public int findWin(SearchBoard b, int budget) {
+		this.nodes  = 0;
+		this.budget = budget;
+		if (b.getState() != State.NOT_OVER)
+			return TranspositionTable.NO_MOVE;
+		return attack(b, 0);
+	}
+
+	/**
+	 * Return the number of moves (counting both players') in the win found by
+	 * the last call to findWin, up to and including the move that completes
+	 * the five.
+	 */
+	public int getWinLength() {
+		return 2 * winPly + 1;
+	}
+
+	/** Return the number of nodes visited by the last call to findWin. */
+	public int getNodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * Return a cell where the opponent of b.nextTurn() threatens to complete
+	 * a five (and which b.nextTurn() must therefore block), or NO_MOVE if
+	 * there is none.
+	 */
+	public int findThreat(SearchBoard b) {
+		int[] cells = buffer(0);
+		return fives(b, b.nextTurn().opponent(), cells) > 0 ? cells[0] : TranspositionTable.NO_MOVE;
+	}
+
+	/**
+	 * Return the first move of a win for the attacker (b.nextTurn()) if one
+	 * is found, or NO_MOVE.
+	 */
+	private int attack(SearchBoard b, int ply) {
+		Player a = b.nextTurn(), d = a.opponent();
+
+		int[] fives = buffer(2*ply + 1);
+		if (fives(b, a, fives) > 0) {
+			winPly = ply;
+			return fives[0];
+		}
+
+		// if the defender has a four, it has to be blocked first
+		int block = TranspositionTable.NO_MOVE;
+		int n = fives(b, d, fives);
+		if (n > 1)
+			return TranspositionTable.NO_MOVE;
+		else if (n == 1)
+			block = fives[0];
+
+		int[] fours = buffer(2*ply);
+		int   m     = fours(b, a, fours);
+		for (int i = 0; i < m && nodes < budget; i++) {
+			int cell = fours[i];
+			if (block != TranspositionTable.NO_MOVE && cell != block)
+				continue;
+
+			b.play(cell);
+			nodes++;
+			// the defender has to block, unless there are two fives to block
+			boolean win;
+			if (fives(b, a, fives) > 1) {
+				winPly = ply + 1;
+				win    = true;
+			}
+			else {
+				b.play(fives[0]);
+				nodes++;
+				win = b.getState() == State.NOT_OVER
+				   && attack(b, ply + 1) != TranspositionTable.NO_MOVE;
+				b.undo();
+			}
+			b.undo();
+
+			if (win)
+				return cell;
+		}
+		return TranspositionTable.NO_MOVE;
+	}
+
+	/** Store the cells where p would complete a five in result, and return how many. */
+	private int fives(SearchBoard b, Player p, int[] result) {
+		return cells(b, p, Line.SIZE - 1, result);
+	}
+
+	/** Store the cells where p would make a four in result, and return how many. */
+	private int fours(SearchBoard b, Player p, int[] result) {
+		return cells(b, p, Line.SIZE - 2, result);
+	}
+
+	/**
+	 * Store in result the empty cells of the lines where p has count marks and
+	 * the opponent has none, without repeats, and return how many there are.
+	 */
+	private int cells(SearchBoard b, Player p, int count, int[] result) {
+		generation++;
+		LineCounts counts = b.getLineCounts();
+		Player     o      = p.opponent();
+		int        lines  = b.getGeometry().lines().size();
+		int        n      = 0;
+		for (int line = 0; line < lines; line++) {
+			if (counts.count(line, p) != count || counts.count(line, o) != 0)
+				continue;
+			for (int cell : b.getGeometry().lines().get(line).cells())
+				if (b.get(cell) == null && stamp[cell] != generation) {
+					stamp[cell] = generation;
+					result[n++] = cell;
+				}
+		}
+		return n;
+	}
+
+	/** Return buffers[i], creating it if necessary. */
+	private int[] buffer(int i) {
+		if (i >= buffers.length) {
+			int[][] bigger = new int[Math.max(2 * buffers.length, i + 1)][];
+			System.arraycopy(buffers, 0, bigger, 0, buffers.length);
+			buffers = bigger;
+		}
+		if (buffers[i] == null)
+			buffers[i] = new int[Geometry.NUM_INDICES];
+		return buffers[i];
+	}
+}
@@ -0,0 +1,238 @@
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * A TranspositionTable remembers the results of searching positions, so that
+ * a position that is reached again (for example by playing the same moves in
+ * a different order) does not have to be searched again.
+ *
+ * <p>The table is stored in a single array of longs of a fixed size, chosen
+ * when the table is created; each entry takes two longs (16 bytes): the
+ * position's Zobrist key, and a packed word containing the search depth, the
+ * kind of bound, the score and the best move.  No objects are created when
+ * entries are stored or looked up.
+ *
+ * <p>Entries are looked up with probe(...), which returns the packed word (or
+ * 0 if the position is not in the table); the fields can then be extracted
+ * with the static methods depth(...), bound(...), score(...) and move(...).
+ *
+ * <p>When two positions map to the same place in the table, one of them has
+ * to be discarded; the {@link Replacement} policy chooses which.
+ *
+ * <p>A table may be shared by several threads without locking.  Instead of
+ * the key itself, each entry stores the key XORed with the packed word, so
+ * that if two threads write the same entry at once and the entry ends up
+ * with one thread's key and the other's word, it no longer matches either
+ * key and is ignored.  The statistics are not exact when the table is being
+ * used by several threads.
+ */
+public class TranspositionTable {
+
+	/** Policies for choosing which entry to keep when two positions collide. */
+	public enum Replacement {
+		/**
+		 * Keep the entry that was searched deeper (new entries always
+		 * replace entries from earlier searches).
+		 */
+		DEPTH_PREFERRED,
+
+		/** Always replace the old entry with the new one. */
+		ALWAYS_REPLACE,
+
+		/**
+		 * Each position has a bucket of two entries: one that is kept
+		 * according to DEPTH_PREFERRED, and one that is always replaced.
+		 */
+		TWO_TIER
+	}
+
+	/** Kinds of bound */
+	public static final int EXACT = 0, // the score is exact
+	                        LOWER = 1, // the real score is at least the score
+	                        UPPER = 2; // the real score is at most the score
+
+	/** The largest depth that can be stored. */
+	public static final int MAX_DEPTH = 0xFF;
+
+	/** The value returned by move(...) if there is no best move. */
+	public static final int NO_MOVE = -1;
+
+	/**
+	 * The largest size of a table, in megabytes: the most whose entries fit
+	 * in one array.
+	 */
+	public static final int MAX_SIZE = 8 * 1024;
+
+	// layout of the packed words:
+	//   bits  0-31: score
+	//   bits 32-47: best move (cell index), plus 1; 0 for none
+	//   bits 48-55: depth
+	//   bits 56-57: bound
+	//   bits 58-62: generation
+	//   bit     63: set in every entry, so that empty slots are 0
+	private static final long VALID = 1L << 63;
+
+	private final long[]      table;   // key^data, data, key^data, data, ...
+	private final int         mask;    // number of entries - 1
+	private final Replacement policy;
+	private int               generation;
+
+	private long probes, hits, collisions, stores;
+
+	/**
+	 * Create a table that takes (at most) the given number of megabytes,
+	 * using the given replacement policy.
+	 * @throws IllegalArgumentException if megabytes is not positive, or is
+	 *     more than MAX_SIZE.
+	 */
+	public TranspositionTable(int megabytes, Replacement policy)
+	     throws IllegalArgumentException
+	{
+		if (megabytes <= 0 || megabytes > MAX_SIZE)
+			throw new IllegalArgumentException("invalid table size: " + megabytes + "MB");
+
+		// round the number of entries down to a power of two
+		long entries = Long.highestOneBit(megabytes * (1L << 20) / 16);
+		this.table  = new long[(int) (2 * entries)];
+		this.mask   = (int) entries - 1;
+		this.policy = policy;
+	}
+
+	/**
+	 * Start a new search: entries stored by earlier searches are still found
+	 * by probe, but are replaced in preference to the new search's entries.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0x1F;
+	}
+
+	/** Remove all entries, and reset the statistics. */
+	public void clear() {
+		Arrays.fill(table, 0);
+		probes = hits = collisions = stores = 0;
+	}
+
+	/**
+	 * Return the packed entry for the position with the given key, or 0 if
+	 * there is none.
+	 */
+	public long probe(long key) {
+		probes++;
+		int i = slot(key);
+		for (int j = 0; j < bucketSize(); j++, i += 2) {
+			long data = table[i + 1];
+			if (data != 0 && (table[i] ^ data) == key) {
+				hits++;
+				return data;
+			}
+		}
+		if (table[slot(key) + 1] != 0)
+			collisions++;
+		return 0;
+	}
+
+	/**
+	 * Record the result of searching the position with the given key to the
+	 * given depth.  bound is one of EXACT, LOWER or UPPER, and move is the
+	 * cell index of the best move found, or NO_MOVE.
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		stores++;
+		long data = VALID
+		          | (long) generation << 58
+		          | (long) bound      << 56
+		          | (long) depth      << 48
+		          | (long) (move + 1) << 32
+		          | score & 0xFFFFFFFFL;
+
+		int i = slot(key);
+		switch (policy) {
+		case ALWAYS_REPLACE:
+			break;
+		case DEPTH_PREFERRED:
+			if (!replaceable(i, key, depth))
+				return;
+			break;
+		case TWO_TIER:
+			if (!replaceable(i, key, depth))
+				i += 2; // use the always-replace entry
+			break;
+		}
+		table[i]     = key ^ data;
+		table[i + 1] = data;
+	}
+
+	/** Return the depth of a packed entry. */
+	public static int depth(long entry) {
+		return (int) (entry >>> 48) & 0xFF;
+	}
+
+	/** Return the bound of a packed entry: EXACT, LOWER or UPPER. */
+	public static int bound(long entry) {
+		return (int) (entry >>> 56) & 3;
+	}
+
+	/** Return the score of a packed entry. */
+	public static int score(long entry) {
+		return (int) entry;
+	}
+
+	/** Return the best move (cell index) of a packed entry, or NO_MOVE. */
+	public static int move(long entry) {
+		return ((int) (entry >>> 32) & 0xFFFF) - 1;
+	}
+
+	/** Return the number of entries the table can hold. */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/** Return the number of calls to probe. */
+	public long getProbes() {
+		return probes;
+	}
+
+	/** Return the number of probes that found their position. */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Return the number of probes that did not find their position because
+	 * its place in the table was taken by a different position.
+	 */
+	public long getCollisions() {
+		return collisions;
+	}
+
+	/** Return the number of calls to store. */
+	public long getStores() {
+		return stores;
+	}
+
+	/** Return the index in table of the first entry for key. */
+	private int slot(long key) {
+		int i = (int) key & mask;
+		if (policy == Replacement.TWO_TIER)
+			i &= ~1; // buckets start at even entries
+		return 2 * i;
+	}
+
+	/** Return the number of entries in a bucket. */
+	private int bucketSize() {
+		return policy == Replacement.TWO_TIER ? 2 : 1;
+	}
+
+	/**
+	 * Return true if the entry at table[i] may be replaced by an entry for
+	 * key searched to depth, according to the depth-preferred policy.
+	 */
+	private boolean replaceable(int i, long key, int depth) {
+		long old = table[i + 1];
+		return old == 0
+		    || (table[i] ^ old) == key
+		    || (int) (old >>> 58 & 0x1F) != generation
+		    || depth(old) <= depth;
+	}
+}
@@ -0,0 +1,54 @@
+package controller.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import controller.MinMaxAI;
+import controller.PatternAI;
+import controller.SmartAI;
+import model.Board;
+import model.Player;
+
+/**
+ * Measures how many bytes SmartAI's and PatternAI's searches allocate per
+ * node, on the positions in {@link Positions#suite()}, using the allocation
+ * counter of the HotSpot JVM's ThreadMXBean.  Each AI is created (with its
+ * transposition table) and run once on every position before it is measured,
+ * so that the measurement leaves out the buffers that the search keeps from
+ * one move to the next; the table is cleared before each measured search, so
+ * that it searches as much as the first time.  What remains are the few
+ * objects created once per call to bestMove.
+ *
+ * <p>The search depth can be given as the first argument (default 4).
+ */
+public class AllocationBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		List<Board> positions = Positions.suite();
+
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		System.out.println("depth " + depth);
+		System.out.println("ai               nodes         bytes  bytes/node     bytes/move");
+		MinMaxAI[] ais = { new SmartAI(Player.X, depth), new PatternAI(Player.X, depth) };
+		for (MinMaxAI ai : ais) {
+			for (Board b : positions)
+				ai.bestMove(b);
+
+			long nodes = 0, bytes = 0;
+			for (Board b : positions) {
+				ai.getTranspositionTable().clear();
+				long start  = ai.getNodeCount();
+				long before = threads.getThreadAllocatedBytes(thread);
+				ai.bestMove(b);
+				bytes += threads.getThreadAllocatedBytes(thread) - before;
+				nodes += ai.getNodeCount() - start;
+			}
+			System.out.printf("%-10s %11d %13d %11.2f %14d%n", ai.getClass().getSimpleName(),
+			                  nodes, bytes, (double) bytes / nodes, bytes / positions.size());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package controller.bench;
+
+import java.util.Random;
+
+import controller.SmartAI;
+import model.Board;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+/**
+ * Measures how the cost of SmartAI's evaluation (estimate) and move generation
+ * (moves) grows with the size of the board.  The evaluation is timed both on
+ * Boards and at the leaves of a search, where a move is played on a
+ * SearchBoard, the board is evaluated, and the move is taken back.
+ *
+ * <p>For each geometry, a number of mid-game positions are created by playing
+ * random moves near the center of the board, and each operation is timed over
+ * those positions.
+ */
+public class BoardSizeBenchmark {
+
+	/** The number of stones in each benchmark position. */
+	private static final int STONES = 20;
+
+	/** The number of positions per geometry. */
+	private static final int POSITIONS = 50;
+
+	/** The number of times each operation is repeated per position. */
+	private static final int REPEAT = 200;
+
+	/** Results are accumulated here so that the JIT cannot skip the work. */
+	static volatile long sink;
+
+	public static void main(String[] args) {
+		Geometry[] geometries = { Geometry.DEFAULT, Geometry.STANDARD, Geometry.LARGE };
+
+		// run everything once to warm up the JIT, then again for real
+		for (Geometry g : geometries)
+			run(g, false);
+
+		System.out.println("size   cells  lines   estimate(us)  moves(us)  leaf(us)");
+		for (Geometry g : geometries)
+			run(g, true);
+	}
+
+	/** Time estimate and moves on geometry g, and print if report is set. */
+	private static void run(Geometry g, boolean report) {
+		Board[] positions = positions(g, new Random(42));
+		SmartAI ai = new SmartAI(Player.X);
+
+		long sum   = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < REPEAT; i++)
+			for (Board b : positions)
+				sum += ai.estimate(b);
+		long estimate = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < REPEAT; i++)
+			for (Board b : positions)
+				for (Location l : ai.moves(b))
+					sum += l.row;
+		long moves = System.nanoTime() - start;
+
+		// (positions where the random moves have won the game are skipped)
+		SearchBoard[] boards = new SearchBoard[POSITIONS];
+		int[]         cells  = new int[POSITIONS];
+		int           n      = 0;
+		for (Board b : positions)
+			if (b.getState() == Board.State.NOT_OVER) {
+				boards[n] = new SearchBoard(b, Player.X);
+				cells[n]  = ai.moves(b).iterator().next().index;
+				n++;
+			}
+		start = System.nanoTime();
+		for (int i = 0; i < REPEAT; i++)
+			for (int j = 0; j < n; j++) {
+				boards[j].play(cells[j]);
+				sum += ai.estimate(boards[j]);
+				boards[j].undo();
+			}
+		long leaf = System.nanoTime() - start;
+		sink = sum;
+
+		if (report)
+			System.out.printf("%-6s %5d  %5d   %12.2f  %9.2f  %8.2f%n",
+			                  g, g.size(), g.lines().size(),
+			                  estimate / 1000.0 / REPEAT / POSITIONS,
+			                  moves    / 1000.0 / REPEAT / POSITIONS,
+			                  leaf     / 1000.0 / REPEAT / n);
+	}
+
+	/** Return POSITIONS boards with STONES random stones near the center. */
+	private static Board[] positions(Geometry g, Random random) {
+		Board[] result = new Board[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++) {
+			Board  b = Board.empty(g);
+			Player p = Player.X;
+			while (b.getState() == Board.State.NOT_OVER && g.size() - countBlank(b) < STONES) {
+				Location loc = Location.of(g.rows/2 - 3 + random.nextInt(7),
+				                           g.cols/2 - 3 + random.nextInt(7));
+				if (b.get(loc) == null) {
+					b = b.update(p, loc);
+					p = p.opponent();
+				}
+			}
+			result[i] = b;
+		}
+		return result;
+	}
+
+	/** Return the number of blank cells on b. */
+	private static int countBlank(Board b) {
+		int result = 0;
+		for (Location loc : b.getGeometry().locations())
+			if (b.get(loc) == null)
+				result++;
+		return result;
+	}
+}
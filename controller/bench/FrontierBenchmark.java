@@ -0,0 +1,144 @@
+package controller.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import controller.SmartAI;
+import model.Board;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+/**
+ * Measures the cost of listing the moves to search at an interior node: a
+ * move is played on a SearchBoard, the moves are listed, and the move is
+ * taken back.  The moves are listed both by scanning every cell for a played
+ * neighbor (as SmartAI used to) and from the board's {@link model.Frontier},
+ * which is kept up to date by play and undo, with radius 1 and 2.  Then
+ * SmartAI's search is run on the positions in {@link Positions#suite()} with
+ * both radii, to show what the larger radius costs in nodes.
+ *
+ * <p>The search depth can be given as the first argument (default 3).
+ */
+public class FrontierBenchmark {
+
+	/** The number of stones in each benchmark position. */
+	private static final int STONES = 20;
+
+	/** The number of positions per geometry. */
+	private static final int POSITIONS = 50;
+
+	/** The number of times each operation is repeated per position. */
+	private static final int REPEAT = 2000;
+
+	/** Results are accumulated here so that the JIT cannot skip the work. */
+	static volatile long sink;
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		Geometry[] geometries = { Geometry.DEFAULT, Geometry.STANDARD, Geometry.LARGE };
+
+		// run everything once to warm up the JIT, then again for real
+		for (Geometry g : geometries)
+			run(g, false);
+
+		System.out.println("size    scan(ns)  radius 1(ns)  radius 2(ns)  moves r1  moves r2");
+		for (Geometry g : geometries)
+			run(g, true);
+
+		System.out.println();
+		System.out.println("depth " + depth);
+		System.out.println("radius       nodes        ms");
+		List<Board> positions = Positions.suite();
+		for (int radius = 1; radius <= 2; radius++) {
+			long nodes = 0, time = 0;
+			for (Board b : positions) {
+				SmartAI ai = new SmartAI(Player.X, depth);
+				ai.setRadius(radius);
+				long start = System.nanoTime();
+				ai.bestMove(b);
+				time  += System.nanoTime() - start;
+				nodes += ai.getNodeCount();
+			}
+			System.out.printf("%6d %11d %9.1f%n", radius, nodes, time / 1e6);
+		}
+	}
+
+	/** Time listing the moves on geometry g, and print if report is set. */
+	private static void run(Geometry g, boolean report) {
+		Random  random    = new Random(42);
+		Board[] positions = new Board[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++)
+			do
+				positions[i] = position(g, random);
+			while (positions[i].getState() != Board.State.NOT_OVER);
+
+		// radius 0 stands for scanning every cell
+		double[] time  = new double[3];
+		int[]    moves = new int[3];
+		int[]    buffer = new int[Geometry.NUM_INDICES];
+		long     sum    = 0;
+		for (int radius = 0; radius <= 2; radius++) {
+			// each node plays the first move of the list, so the frontier changes
+			SearchBoard[] boards = new SearchBoard[POSITIONS];
+			int[]         cells  = new int[POSITIONS];
+			for (int j = 0; j < POSITIONS; j++) {
+				boards[j] = new SearchBoard(positions[j], Player.X);
+				moves[radius] += list(boards[j], radius, buffer);
+				cells[j] = buffer[0];
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < REPEAT; i++)
+				for (int j = 0; j < POSITIONS; j++) {
+					boards[j].play(cells[j]);
+					sum += list(boards[j], radius, buffer);
+					boards[j].undo();
+				}
+			time[radius] = (double) (System.nanoTime() - start) / REPEAT / POSITIONS;
+		}
+		sink = sum;
+
+		if (report)
+			System.out.printf("%-6s %9.1f  %12.1f  %12.1f  %8d  %8d%n", g,
+			                  time[0], time[1], time[2],
+			                  moves[1] / POSITIONS, moves[2] / POSITIONS);
+	}
+
+	/**
+	 * Store the moves within radius of a mark on b in result, and return how
+	 * many there are; radius 0 finds the moves with a played neighbor by
+	 * scanning every cell.
+	 */
+	private static int list(SearchBoard b, int radius, int[] result) {
+		if (radius > 0)
+			return b.getFrontier(radius).cells(result);
+
+		int n = 0;
+		for (int cell : b.getGeometry().cells())
+			if (b.get(cell) == null)
+				for (int neighbor : b.getGeometry().neighbors(cell))
+					if (b.get(neighbor) != null) {
+						result[n++] = cell;
+						break;
+					}
+		return n;
+	}
+
+	/** Return a board with STONES random stones near the center of g. */
+	private static Board position(Geometry g, Random random) {
+		Board  b = Board.empty(g);
+		Player p = Player.X;
+		for (int n = 0; n < STONES && b.getState() == Board.State.NOT_OVER; ) {
+			Location loc = Location.of(g.rows/2 - 3 + random.nextInt(7),
+			                           g.cols/2 - 3 + random.nextInt(7));
+			if (b.get(loc) == null) {
+				b = b.update(p, loc);
+				p = p.opponent();
+				n++;
+			}
+		}
+		return b;
+	}
+}
@@ -0,0 +1,88 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.MonteCarloAI;
+import controller.SmartAI;
+import model.Board;
+import model.Board.State;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+/**
+ * Measures MonteCarloAI: first the number of playouts per second with 1, 2, 4
+ * and 8 threads on each size of board, and then its strength, by playing it
+ * against SmartAI with the same time limit per move.
+ *
+ * <p>The playouts are counted on mid-game positions with 10 stones, searching
+ * each for the given time.  The games start from 4-stone positions on the 9x9
+ * board, and each opening is played twice, with each AI playing X once.  The
+ * time limit in milliseconds and the number of openings can be given as the
+ * first and second arguments (default 100 and 4).  The number of available
+ * processors is printed first; there is no speedup to be had from more
+ * threads than that.
+ */
+public class MonteCarloBenchmark {
+
+	/** The number of positions per board size. */
+	private static final int POSITIONS = 4;
+
+	public static void main(String[] args) {
+		long limit    = args.length > 0 ? Long.parseLong(args[0])  : 100;
+		int  openings = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+		System.out.println(limit + "ms per move, "
+		                   + Runtime.getRuntime().availableProcessors() + " processors");
+		Geometry[] geometries = { Geometry.DEFAULT, Geometry.STANDARD, Geometry.LARGE };
+
+		// run once to warm up the JIT, then again for real
+		for (Geometry g : geometries)
+			rate(g, 1, limit);
+
+		System.out.println("size   threads  playouts/s  speedup");
+		for (Geometry g : geometries) {
+			double base = rate(g, 1, limit);
+			for (int threads = 1; threads <= 8; threads *= 2) {
+				double rate = threads == 1 ? base : rate(g, threads, limit);
+				System.out.printf("%-6s %7d  %10.0f  %7.2f%n", g, threads, rate, rate / base);
+			}
+		}
+
+		int wins = 0, losses = 0, draws = 0;
+		for (Board opening : Positions.midgame(Geometry.DEFAULT, openings, 4))
+			for (Player mc : Player.values()) {
+				MonteCarloAI ai = new MonteCarloAI(mc, limit);
+				SmartAI      opponent = SmartAI.withTimeLimit(mc.opponent(), limit);
+
+				Board  b    = opening;
+				Player turn = Player.X;
+				while (b.getState() == State.NOT_OVER) {
+					Location move = turn == mc ? ai.bestMove(b) : opponent.bestMove(b);
+					b    = b.update(turn, move);
+					turn = turn.opponent();
+				}
+				if (b.getState() == State.DRAW)
+					draws++;
+				else if (b.getWinner().winner == mc)
+					wins++;
+				else
+					losses++;
+			}
+		System.out.printf("MonteCarloAI vs SmartAI at %dms per move: %d wins, %d losses, %d draws%n",
+		                  limit, wins, losses, draws);
+	}
+
+	/** Return the playouts per second with the given threads on g's positions. */
+	private static double rate(Geometry g, int threads, long limit) {
+		long playouts = 0;
+		for (Board b : Positions.midgame(g, POSITIONS, 10)) {
+			MonteCarloAI ai = new MonteCarloAI(Player.X, limit);
+			ai.setThreads(threads);
+			ai.setThreatSearch(0);
+			ai.bestMove(b);
+			playouts += ai.getPlayoutCount();
+		}
+		return playouts * 1000.0 / limit / POSITIONS;
+	}
+}
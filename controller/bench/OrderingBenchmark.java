@@ -0,0 +1,55 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import controller.TranspositionTable;
+import model.Board;
+import model.Player;
+
+/**
+ * Compares the number of nodes visited by SmartAI's alpha-beta search with
+ * different amounts of move ordering, on the positions in
+ * {@link Positions#suite()}: moves in the order returned by moves; only the
+ * transposition table's move first; and full move ordering (table move,
+ * killer moves, priority and history).  All three must choose the same moves.
+ *
+ * <p>The search depth can be given as the first argument (default 4).
+ */
+public class OrderingBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("depth " + depth);
+		System.out.println("pos      unordered    table move       ordered  same move");
+		long[] totals = new long[3];
+		long[] times  = new long[3];
+		for (int i = 0; i < positions.size(); i++) {
+			Board    b     = positions.get(i);
+			long[]   nodes = new long[3];
+			Object[] moves = new Object[3];
+			for (int v = 0; v < 3; v++) {
+				SmartAI ai = new SmartAI(Player.X, depth);
+				if (v == 0)
+					ai.setTranspositionTable(null);
+				else
+					ai.setTranspositionTable(new TranspositionTable(SmartAI.TABLE_SIZE,
+					                         TranspositionTable.Replacement.TWO_TIER));
+				ai.setMoveOrdering(v == 2);
+
+				long start = System.nanoTime();
+				moves[v] = ai.bestMove(b);
+				times[v] += System.nanoTime() - start;
+
+				nodes[v]   = ai.getNodeCount();
+				totals[v] += nodes[v];
+			}
+			System.out.printf("%3d  %13d %13d %13d  %s%n", i, nodes[0], nodes[1], nodes[2],
+			                  moves[0].equals(moves[1]) && moves[0].equals(moves[2]) ? "yes" : "NO");
+		}
+		System.out.printf("total%13d %13d %13d%n", totals[0], totals[1], totals[2]);
+		System.out.printf("ms   %13.1f %13.1f %13.1f%n", times[0] / 1e6, times[1] / 1e6, times[2] / 1e6);
+	}
+}
@@ -0,0 +1,55 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import model.Board;
+import model.Location;
+import model.Player;
+
+/**
+ * Measures the speedup of SmartAI's search with 1, 2, 4, 8 and 16 threads on
+ * the positions in {@link Positions#suite()}, searching to a fixed depth.
+ * For each number of threads, the total time, the total number of nodes
+ * visited by all threads, the speedup over one thread, and the number of
+ * positions where the move differs from the one-thread move are printed.
+ *
+ * <p>The search depth can be given as the first argument (default 5).  The
+ * number of available processors is printed first; there is no speedup to
+ * be had from more threads than that.
+ */
+public class ParallelBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("depth " + depth + ", "
+		                   + Runtime.getRuntime().availableProcessors() + " processors");
+		System.out.println("threads        ms         nodes  speedup  different moves");
+		Location[] single = new Location[positions.size()];
+		double     base   = 0;
+		for (int threads = 1; threads <= 16; threads *= 2) {
+			long time = 0, nodes = 0;
+			int  different = 0;
+			for (int i = 0; i < positions.size(); i++) {
+				SmartAI ai = new SmartAI(Player.X, depth);
+				ai.setThreads(threads);
+
+				long start = System.nanoTime();
+				Location move = ai.bestMove(positions.get(i));
+				time  += System.nanoTime() - start;
+				nodes += ai.getNodeCount();
+
+				if (threads == 1)
+					single[i] = move;
+				else if (!move.equals(single[i]))
+					different++;
+			}
+			if (threads == 1)
+				base = time;
+			System.out.printf("%7d %9.1f %13d %8.2f  %d%n", threads, time / 1e6, nodes,
+			                  base / time, different);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.MinMaxAI;
+import controller.PatternAI;
+import controller.SmartAI;
+import model.Board;
+import model.Board.State;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+/**
+ * Compares PatternAI with SmartAI: first the cost of an evaluation at the
+ * leaves of a search (play a move on a SearchBoard, evaluate, take it back)
+ * on the positions in {@link Positions#suite()}, and then their strength, by
+ * playing them against each other with the same time limit per move.
+ *
+ * <p>The games start from 4-stone positions, and each opening is played
+ * twice, with each AI playing X once.  The number of openings and the time
+ * limit in milliseconds can be given as the first and second arguments
+ * (default 8 and 100).
+ */
+public class PatternBenchmark {
+
+	/** The number of times each evaluation is repeated per position. */
+	private static final int REPEAT = 100000;
+
+	/** Results are accumulated here so that the JIT cannot skip the work. */
+	static volatile long sink;
+
+	public static void main(String[] args) {
+		int  openings = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		long limit    = args.length > 1 ? Long.parseLong(args[1])    : 100;
+
+		// run once to warm up the JIT, then again for real
+		leafTime(new SmartAI(Player.X));
+		leafTime(new PatternAI(Player.X));
+		System.out.printf("leaf evaluation: SmartAI %.3fus, PatternAI %.3fus%n",
+		                  leafTime(new SmartAI(Player.X)), leafTime(new PatternAI(Player.X)));
+
+		int wins = 0, losses = 0, draws = 0;
+		for (Board opening : Positions.midgame(Geometry.DEFAULT, openings, 4))
+			for (Player pattern : Player.values()) {
+				MinMaxAI x = pattern == Player.X ? new PatternAI(Player.X) : new SmartAI(Player.X);
+				MinMaxAI o = pattern == Player.O ? new PatternAI(Player.O) : new SmartAI(Player.O);
+				x.setTimeLimit(limit);
+				o.setTimeLimit(limit);
+
+				Board b = play(opening, x, o);
+				if (b.getState() == State.DRAW)
+					draws++;
+				else if (b.getWinner().winner == pattern)
+					wins++;
+				else
+					losses++;
+			}
+		System.out.printf("PatternAI vs SmartAI at %dms per move: %d wins, %d losses, %d draws%n",
+		                  limit, wins, losses, draws);
+	}
+
+	/** Return the average time in microseconds of a leaf evaluation by ai. */
+	private static double leafTime(SmartAI ai) {
+		List<Board> positions = Positions.suite();
+		long sum  = 0;
+		long time = 0;
+		for (Board position : positions) {
+			SearchBoard b    = new SearchBoard(position, Player.X);
+			int         cell = ai.moves(b).iterator().next().index;
+			long start = System.nanoTime();
+			for (int i = 0; i < REPEAT; i++) {
+				b.play(cell);
+				sum += ai.estimate(b);
+				b.undo();
+			}
+			time += System.nanoTime() - start;
+		}
+		sink = sum;
+		return time / 1000.0 / REPEAT / positions.size();
+	}
+
+	/** Play the game from b (with X to move) to the end, and return the final board. */
+	private static Board play(Board b, MinMaxAI x, MinMaxAI o) {
+		Player turn = Player.X;
+		while (b.getState() == State.NOT_OVER) {
+			Location move = (turn == Player.X ? x : o).bestMove(b);
+			b    = b.update(turn, move);
+			turn = turn.opponent();
+		}
+		return b;
+	}
+}
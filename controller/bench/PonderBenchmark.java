@@ -0,0 +1,114 @@
+package controller.bench;
+
+import controller.Controller;
+import controller.GameDriver;
+import controller.MinMaxAI;
+import controller.PatternAI;
+import controller.SmartAI;
+import model.Board.State;
+import model.Game;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+/**
+ * Measures how long a SmartAI takes to answer a player who thinks for a
+ * while before each move, as a person would, with and without pondering (see
+ * {@link MinMaxAI#setPondering(boolean)}).  The "person" is a PatternAI that
+ * searches two moves ahead and then sleeps, leaving the processor idle.  The
+ * same games are played both ways, and the SmartAI's average and longest
+ * times to move are printed, with its ponder hits and misses.
+ *
+ * <p>The SmartAI's time limit and the person's thinking time, in
+ * milliseconds, can be given as the first and second arguments (default 500
+ * and 1000).
+ */
+public class PonderBenchmark {
+
+	/** The number of games played each way. */
+	private static final int GAMES = 2;
+
+	/** The person: a quick PatternAI that takes its time. */
+	private static class Person extends Controller {
+		private final PatternAI ai;
+		private final long      think;
+
+		Person(Player me, long think) {
+			super(me);
+			this.ai    = new PatternAI(me, 2);
+			this.think = think;
+		}
+
+		protected @Override Location nextMove(Game g) {
+			try {
+				Thread.sleep(think);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return ai.bestMove(g.getBoard());
+		}
+	}
+
+	/** A SmartAI whose time to move is measured. */
+	private static class Timed extends Controller {
+		private final SmartAI ai;
+		long total, longest;
+		int  moves;
+
+		Timed(Player me, long limit, boolean ponder) {
+			super(me);
+			this.ai = SmartAI.withTimeLimit(me, limit);
+			ai.setPondering(ponder);
+		}
+
+		protected @Override Location nextMove(Game g) {
+			long start = System.nanoTime();
+			Location result = ai.bestMove(g.getBoard());
+			long time = System.nanoTime() - start;
+			total  += time;
+			longest = Math.max(longest, time);
+			moves++;
+			return result;
+		}
+
+		protected @Override void notMyTurn(Game g) {
+			if (g.getBoard().getState() == State.NOT_OVER)
+				ai.ponder(g.getBoard());
+			else
+				ai.stopPondering();
+		}
+	}
+
+	public static void main(String[] args) {
+		long limit = args.length > 0 ? Long.parseLong(args[0]) : 500;
+		long think = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+		System.out.println("time limit " + limit + "ms, thinking time " + think + "ms");
+		System.out.println("ponder  moves   mean ms    max ms   hits  misses");
+		for (boolean ponder : new boolean[] { false, true }) {
+			Timed ai = null;
+			long total = 0, longest = 0;
+			int  moves = 0, hits = 0, misses = 0;
+			for (int i = 0; i < GAMES; i++) {
+				// the AI plays X in the first game and O in the second
+				Player p = i % 2 == 0 ? Player.X : Player.O;
+				ai = new Timed(p, limit, ponder);
+				Controller person = new Person(p.opponent(), think);
+				Game g = new Game(Geometry.STANDARD, Player.X);
+				if (p == Player.X)
+					new GameDriver(g, ai, person).run();
+				else
+					new GameDriver(g, person, ai).run();
+
+				total  += ai.total;
+				longest = Math.max(longest, ai.longest);
+				moves  += ai.moves;
+				hits   += ai.ai.getPonderHits();
+				misses += ai.ai.getPonderMisses();
+				ai.ai.setPondering(false);
+			}
+			System.out.printf("%-6s %6d %9.1f %9.1f %6d %7d%n", ponder ? "on" : "off",
+			                  moves, total / 1e6 / moves, longest / 1e6, hits, misses);
+		}
+	}
+}
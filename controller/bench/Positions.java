@@ -0,0 +1,72 @@
+package controller.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.Board;
+import model.Board.State;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+/**
+ * A fixed suite of positions for the search benchmarks: the unfinished boards
+ * from SmartAITest, and some mid-game positions made by playing random moves
+ * near the center of the board from a fixed seed.  Every position has X to
+ * move.
+ */
+public class Positions {
+
+	/** Return the positions from SmartAITest (with X to move) that are not over. */
+	public static List<Board> openings() {
+		List<Board> result = new ArrayList<Board>();
+		Board one = Board.EMPTY.update(Player.X, Location.of(4,4));
+		result.add(one.update(Player.O, Location.of(3,4)));
+		result.add(one.update(Player.O, Location.of(4,5)));
+		Board seven = one.update(Player.O, Location.of(5,5))
+		                 .update(Player.X, Location.of(4,5))
+		                 .update(Player.O, Location.of(4,6));
+		result.add(seven.update(Player.X, Location.of(3,3))
+		                .update(Player.O, Location.of(6,6)));
+		result.add(seven.update(Player.X, Location.of(5,4))
+		                .update(Player.O, Location.of(3,6)));
+		return result;
+	}
+
+	/**
+	 * Return count mid-game positions on g, each with the given (even) number
+	 * of stones, generated from a fixed seed.
+	 */
+	public static List<Board> midgame(Geometry g, int count, int stones) {
+		Random random = new Random(2017);
+		List<Board> result = new ArrayList<Board>();
+		while (result.size() < count) {
+			Board  b = Board.empty(g);
+			Player p = Player.X;
+			int    n = 0;
+			while (n < stones && b.getState() == State.NOT_OVER) {
+				Location loc = Location.of(g.rows/2 - 3 + random.nextInt(7),
+				                           g.cols/2 - 3 + random.nextInt(7));
+				if (b.get(loc) == null) {
+					b = b.update(p, loc);
+					p = p.opponent();
+					n++;
+				}
+			}
+			if (b.getState() == State.NOT_OVER)
+				result.add(b);
+		}
+		return result;
+	}
+
+	/** Return the standard suite: the openings and 8 9x9 mid-game positions. */
+	public static List<Board> suite() {
+		List<Board> result = openings();
+		result.addAll(midgame(Geometry.DEFAULT, 8, 10));
+		return result;
+	}
+
+	private Positions() {
+	}
+}
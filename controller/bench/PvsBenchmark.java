@@ -0,0 +1,81 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import model.Board;
+import model.Location;
+import model.Player;
+
+/**
+ * Measures the effect of principal variation search and aspiration windows
+ * on SmartAI's search, on the positions in {@link Positions#suite()}.
+ *
+ * <p>First, each position is searched to a fixed depth with plain alpha-beta
+ * (every move searched with the full window) and with principal variation
+ * search, and the numbers of nodes are compared; both must choose the same
+ * move.  Then, since aspiration windows are only used with a time limit,
+ * each position is searched for a fixed time with plain alpha-beta, and with
+ * principal variation search and aspiration windows of several widths (0
+ * turns them off), and the average depth reached is printed.
+ *
+ * <p>The search depth and the time limit in milliseconds can be given as the
+ * first and second arguments (default 4 and 200).
+ */
+public class PvsBenchmark {
+
+	/** The aspiration window widths compared (-1 for plain alpha-beta). */
+	private static final int[] WIDTHS = { -1, 0, 10, 50, 200, 1000 };
+
+	public static void main(String[] args) {
+		int  depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		long limit = args.length > 1 ? Long.parseLong(args[1])    : 200;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("depth " + depth);
+		System.out.println("pos    alpha-beta nodes       ms     PVS nodes       ms  same move  PV");
+		long totalPlain = 0, totalPvs = 0;
+		for (int i = 0; i < positions.size(); i++) {
+			Board b = positions.get(i);
+
+			SmartAI plain = new SmartAI(Player.X, depth);
+			plain.setPrincipalVariationSearch(false);
+			long start = System.nanoTime();
+			Location plainMove = plain.bestMove(b);
+			long plainTime = System.nanoTime() - start;
+
+			SmartAI pvs = new SmartAI(Player.X, depth);
+			start = System.nanoTime();
+			Location pvsMove = pvs.bestMove(b);
+			long pvsTime = System.nanoTime() - start;
+
+			totalPlain += plain.getNodeCount();
+			totalPvs   += pvs.getNodeCount();
+			System.out.printf("%3d  %17d %8.1f  %12d %8.1f  %-9s  %s%n", i,
+			                  plain.getNodeCount(), plainTime / 1e6,
+			                  pvs.getNodeCount(),   pvsTime   / 1e6,
+			                  plainMove.equals(pvsMove) ? "yes" : "NO",
+			                  pvs.getPrincipalVariation());
+		}
+		System.out.printf("total %16d            %12d   (%.1f%% of alpha-beta)%n",
+		                  totalPlain, totalPvs, 100.0 * totalPvs / totalPlain);
+
+		// the searches above warmed up the JIT for these
+		System.out.println();
+		System.out.println("time limit " + limit + "ms");
+		System.out.println("search            mean depth");
+		for (int width : WIDTHS) {
+			int depths = 0;
+			for (Board b : positions) {
+				SmartAI ai = SmartAI.withTimeLimit(Player.X, limit);
+				if (width < 0)
+					ai.setPrincipalVariationSearch(false);
+				ai.setAspirationWindow(Math.max(width, 0));
+				ai.bestMove(b);
+				depths += ai.getSearchDepth();
+			}
+			System.out.printf("%-16s  %10.2f%n", width < 0 ? "alpha-beta" : "PVS, window " + width,
+			                  (double) depths / positions.size());
+		}
+	}
+}
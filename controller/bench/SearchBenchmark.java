@@ -0,0 +1,52 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import model.Board;
+import model.Player;
+
+/**
+ * Compares the number of nodes visited and the time taken by SmartAI's search
+ * with and without alpha-beta pruning, on the positions in
+ * {@link Positions#suite()}.  Both searches must choose the same moves.
+ * Neither search uses a transposition table (see TranspositionBenchmark).
+ *
+ * <p>The search depth can be given as the first argument (default 3).
+ */
+public class SearchBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("depth " + depth);
+		System.out.println("pos     minimax nodes       ms    alpha-beta nodes       ms  same move");
+		long totalPlain = 0, totalPruned = 0;
+		for (int i = 0; i < positions.size(); i++) {
+			Board b = positions.get(i);
+
+			SmartAI plain = new SmartAI(Player.X, depth);
+			plain.setPruning(false);
+			plain.setTranspositionTable(null);
+			long start = System.nanoTime();
+			Object plainMove = plain.bestMove(b);
+			long plainTime = System.nanoTime() - start;
+
+			SmartAI pruned = new SmartAI(Player.X, depth);
+			pruned.setTranspositionTable(null);
+			start = System.nanoTime();
+			Object prunedMove = pruned.bestMove(b);
+			long prunedTime = System.nanoTime() - start;
+
+			totalPlain  += plain.getNodeCount();
+			totalPruned += pruned.getNodeCount();
+			System.out.printf("%3d  %16d %8.1f  %18d %8.1f  %s%n", i,
+			                  plain.getNodeCount(),  plainTime  / 1e6,
+			                  pruned.getNodeCount(), prunedTime / 1e6,
+			                  plainMove.equals(prunedMove) ? "yes" : "NO");
+		}
+		System.out.printf("total %14d            %18d   (%.1f%% of minimax)%n",
+		                  totalPlain, totalPruned, 100.0 * totalPruned / totalPlain);
+	}
+}
@@ -0,0 +1,59 @@
+package controller.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import controller.SmartAI;
+import controller.SolvedCache;
+import model.Board;
+import model.Geometry;
+import model.Player;
+
+/**
+ * Measures the effect of a {@link SolvedCache} on SmartAI's search: the
+ * positions in {@link Positions#suite()} and some later mid-game positions
+ * (where more positions can be proven) are searched to a fixed depth without
+ * a cache, then with an empty cache, and then again by new AIs sharing the
+ * filled cache, as the AIs of a later game (or a later run) would.
+ *
+ * <p>The search depth can be given as the first argument (default 4).
+ */
+public class SolvedCacheBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		List<Board> positions = Positions.suite();
+		positions.addAll(Positions.midgame(Geometry.DEFAULT, 8, 16));
+
+		Path file = Files.createTempFile("solved", ".cache");
+		Files.delete(file);
+		try {
+			SolvedCache cache = SolvedCache.open(file, 16);
+			System.out.println("depth " + depth + ", " + positions.size() + " positions");
+			System.out.println("cache          ms         nodes   stores     hits");
+			run("none",  positions, depth, null);
+			run("empty", positions, depth, cache);
+			run("filled", positions, depth, SolvedCache.open(file, 16));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/** Search positions with new AIs using cache, and print the results. */
+	private static void run(String name, List<Board> positions, int depth, SolvedCache cache) {
+		long time = 0, nodes = 0;
+		for (Board b : positions) {
+			SmartAI ai = new SmartAI(Player.X, depth);
+			ai.setSolvedCache(cache);
+			long start = System.nanoTime();
+			ai.bestMove(b);
+			time  += System.nanoTime() - start;
+			nodes += ai.getNodeCount();
+		}
+		System.out.printf("%-7s %9.1f %13d %8d %8d%n", name, time / 1e6, nodes,
+		                  cache == null ? 0 : cache.getStores(),
+		                  cache == null ? 0 : cache.getHits());
+	}
+}
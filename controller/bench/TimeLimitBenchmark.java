@@ -0,0 +1,47 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import model.Board;
+import model.Location;
+import model.Player;
+
+/**
+ * Compares the time SmartAI takes to choose a move when searching to a fixed
+ * depth with the time it takes when given a time limit, on the positions in
+ * {@link Positions#suite()}.  For the time-limited search, the depth reached
+ * is also printed.
+ *
+ * <p>The fixed depth and the time limit in milliseconds can be given as the
+ * first and second arguments (default 4 and 250).
+ */
+public class TimeLimitBenchmark {
+
+	public static void main(String[] args) {
+		int  depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		long limit = args.length > 1 ? Long.parseLong(args[1])    : 250;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("fixed depth " + depth + ", time limit " + limit + "ms");
+		System.out.println("pos   fixed ms  move     timed ms  depth  move");
+		for (int i = 0; i < positions.size(); i++) {
+			Board b = positions.get(i);
+
+			SmartAI fixed = new SmartAI(Player.X, depth);
+			long start = System.nanoTime();
+			Location fixedMove = fixed.bestMove(b);
+			long fixedTime = System.nanoTime() - start;
+
+			SmartAI timed = new SmartAI(Player.X);
+			timed.setTimeLimit(limit);
+			start = System.nanoTime();
+			Location timedMove = timed.bestMove(b);
+			long timedTime = System.nanoTime() - start;
+
+			System.out.printf("%3d %10.1f  %-8s %8.1f  %5d  %s%n", i,
+			                  fixedTime / 1e6, fixedMove,
+			                  timedTime / 1e6, timed.getSearchDepth(), timedMove);
+		}
+	}
+}
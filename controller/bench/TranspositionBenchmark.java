@@ -0,0 +1,51 @@
+package controller.bench;
+
+import java.util.List;
+
+import controller.SmartAI;
+import controller.TranspositionTable;
+import controller.TranspositionTable.Replacement;
+import model.Board;
+import model.Player;
+
+/**
+ * Compares SmartAI's alpha-beta search without a transposition table to the
+ * search with tables using each of the replacement policies, on the positions
+ * in {@link Positions#suite()}.  For each policy the number of nodes visited,
+ * the table statistics and the total time are printed.
+ *
+ * <p>The search depth and the table size in megabytes can be given as the
+ * first and second arguments (default 4 and 1).  The table is kept between the
+ * positions, as it is kept between the moves of a game, so that a small
+ * table shows the effect of the replacement policy.
+ */
+public class TranspositionBenchmark {
+
+	public static void main(String[] args) {
+		int depth     = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		List<Board> positions = Positions.suite();
+
+		System.out.println("depth " + depth + ", table " + megabytes + "MB");
+		System.out.println("policy                nodes      probes        hits  collisions       ms");
+		run("none", null, depth, positions);
+		for (Replacement policy : Replacement.values())
+			run(policy.toString(), new TranspositionTable(megabytes, policy), depth, positions);
+	}
+
+	private static void run(String name, TranspositionTable table, int depth, List<Board> positions) {
+		SmartAI ai = new SmartAI(Player.X, depth);
+		ai.setTranspositionTable(table);
+
+		long start = System.nanoTime();
+		for (Board b : positions)
+			ai.bestMove(b);
+		long time = System.nanoTime() - start;
+
+		System.out.printf("%-16s %10d  %10d  %10d  %10d %8.1f%n", name, ai.getNodeCount(),
+		                  table == null ? 0 : table.getProbes(),
+		                  table == null ? 0 : table.getHits(),
+		                  table == null ? 0 : table.getCollisions(),
+		                  time / 1e6);
+	}
+}
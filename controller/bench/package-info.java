@@ -0,0 +1,11 @@
+// note: package-info.java is the standard place to put
+// overview documentation for a package.  There is no
+// actual code in this file.
+
+/**
+ * This package contains micro-benchmarks for the AI controllers.  Each class
+ * has a main method that prints its measurements to the console; they are not
+ * run as part of the tests.
+ */
+
+package controller.bench;
@@ -0,0 +1,86 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import controller.Controller;
+import controller.GameDriver;
+import model.Board;
+import model.Board.State;
+import model.Game;
+import model.GameListener;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+public class GameDriverTest {
+
+	/** A controller that plays in the first empty cell, without delay. */
+	private static class FirstEmpty extends Controller {
+		FirstEmpty(Player me) {
+			super(me);
+		}
+
+		protected @Override Location nextMove(Game g) {
+			for (Location loc : g.getBoard().getGeometry().locations())
+				if (g.getBoard().get(loc) == null)
+					return loc;
+			return null;
+		}
+	}
+
+	/** A listener that records every board it sees, and the stack depth. */
+	private static class Recorder implements GameListener {
+		List<Board> seen = new ArrayList<Board>();
+		int maxDepth = 0;
+
+		public @Override void gameChanged(Game g) {
+			seen.add(g.getBoard());
+			maxDepth = Math.max(maxDepth, new Throwable().getStackTrace().length);
+		}
+	}
+
+	@Test
+	public void testListenersSeeEveryMove() {
+		Game g = new Game(Geometry.LARGE, Player.X);
+		Recorder r = new Recorder();
+		g.addListener(r);
+		int depth = r.maxDepth;
+		g.addListener(new FirstEmpty(Player.X));
+		g.addListener(new FirstEmpty(Player.O));
+
+		// the recorder saw the empty board, and then each move in turn
+		assertEquals(State.HAS_WINNER, g.getBoard().getState());
+		for (int i = 0; i < r.seen.size(); i++)
+			assertEquals(Geometry.LARGE.size() - i, countBlank(r.seen.get(i)));
+		assertSame(g.getBoard(), r.seen.get(r.seen.size() - 1));
+
+		// the game did not recurse
+		assertTrue(r.maxDepth < depth + 20);
+	}
+
+	@Test
+	public void testDriver() {
+		Game g = new Game(Geometry.LARGE, Player.X);
+		Recorder r = new Recorder();
+		g.addListener(r);
+		new GameDriver(g, new FirstEmpty(Player.X), new FirstEmpty(Player.O)).run();
+
+		assertEquals(State.HAS_WINNER, g.getBoard().getState());
+		for (int i = 0; i < r.seen.size(); i++)
+			assertEquals(Geometry.LARGE.size() - i, countBlank(r.seen.get(i)));
+	}
+
+	/** Return the number of blank cells on b. */
+	private static int countBlank(Board b) {
+		int result = 0;
+		for (int cell : b.getGeometry().cells())
+			if (b.get(cell) == null)
+				result++;
+		return result;
+	}
+}
@@ -0,0 +1,265 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.PatternAI;
+import controller.SmartAI;
+import controller.TranspositionTable;
+import controller.TranspositionTable.Replacement;
+import model.Board;
+import model.Location;
+import model.Player;
+
+public class MinMaxAITest {
+
+	// Boards (X to move in each):
+	//          |           |  O      |
+	//    O     |    XO     |   XXO   |
+	//    X     |     O     |    OXX  |
+	//          |    X      |     O   |
+	//   (0)        (1)         (2)
+
+	private Board[] boards;
+
+	@Before
+	public void setUp() {
+		boards = new Board[3];
+		boards[0] = Board.EMPTY.update(Player.X, Location.of(4,4))
+		                       .update(Player.O, Location.of(3,4));
+		boards[1] = Board.EMPTY.update(Player.X, Location.of(3,3))
+		                       .update(Player.O, Location.of(3,4))
+		                       .update(Player.X, Location.of(5,3))
+		                       .update(Player.O, Location.of(4,4));
+		boards[2] = Board.EMPTY.update(Player.X, Location.of(3,4))
+		                       .update(Player.O, Location.of(2,3))
+		                       .update(Player.X, Location.of(3,5))
+		                       .update(Player.O, Location.of(3,6))
+		                       .update(Player.X, Location.of(4,5))
+		                       .update(Player.O, Location.of(4,4))
+		                       .update(Player.X, Location.of(4,6))
+		                       .update(Player.O, Location.of(5,5));
+	}
+
+	@Test
+	public void testPruningGivesSameMove() {
+		long plainNodes = 0, prunedNodes = 0;
+		for (int depth = 1; depth <= 3; depth++)
+			for (Board b : boards) {
+				SmartAI plain  = new SmartAI(Player.X, depth);
+				SmartAI pruned = new SmartAI(Player.X, depth);
+				plain.setPruning(false);
+				plain.setTranspositionTable(null);
+				pruned.setTranspositionTable(null);
+
+				assertEquals(plain.bestMove(b), pruned.bestMove(b));
+				assertTrue(pruned.getNodeCount() <= plain.getNodeCount());
+				plainNodes  += plain.getNodeCount();
+				prunedNodes += pruned.getNodeCount();
+			}
+
+		// make sure that setPruning(false) really turned pruning off
+		assertTrue(prunedNodes < plainNodes);
+	}
+
+	@Test
+	public void testTableGivesSameMove() {
+		for (Replacement policy : Replacement.values())
+			for (int depth = 1; depth <= 3; depth++)
+				for (Board b : boards) {
+					SmartAI plain = new SmartAI(Player.X, depth);
+					SmartAI ai    = new SmartAI(Player.X, depth);
+					plain.setTranspositionTable(null);
+					ai.setTranspositionTable(new TranspositionTable(1, policy));
+
+					assertEquals(plain.bestMove(b), ai.bestMove(b));
+					assertTrue(ai.getNodeCount() <= plain.getNodeCount());
+				}
+	}
+
+	@Test
+	public void testOrderingGivesSameMove() {
+		for (int depth = 1; depth <= 4; depth++)
+			for (Board b : boards) {
+				SmartAI plain   = new SmartAI(Player.X, depth);
+				SmartAI ordered = new SmartAI(Player.X, depth);
+				plain.setMoveOrdering(false);
+
+				assertEquals(plain.bestMove(b), ordered.bestMove(b));
+			}
+	}
+
+	@Test
+	public void testPrincipalVariation() {
+		for (int depth = 1; depth <= 4; depth++)
+			for (Board b : boards) {
+				SmartAI plain = new SmartAI(Player.X, depth);
+				SmartAI pvs   = new SmartAI(Player.X, depth);
+				plain.setPrincipalVariationSearch(false);
+				Location move = pvs.bestMove(b);
+				assertEquals(plain.bestMove(b), move);
+				checkLine(b, move, pvs.getPrincipalVariation(), depth);
+			}
+
+		// with a time limit, aspiration windows are used too
+		for (Board b : boards) {
+			SmartAI ai = SmartAI.withTimeLimit(Player.X, 100);
+			ai.setAspirationWindow(10);
+			Location move = ai.bestMove(b);
+			checkLine(b, move, ai.getPrincipalVariation(), ai.getSearchDepth());
+		}
+	}
+
+	/**
+	 * Check that line is a principal variation on b (with X to move) that
+	 * starts with move and is at most depth moves long.
+	 */
+	private static void checkLine(Board b, Location move, List<Location> line, int depth) {
+		assertFalse(line.isEmpty());
+		assertEquals(move, line.get(0));
+		assertTrue(line.size() <= depth);
+		Player p = Player.X;
+		for (Location l : line) {
+			assertNull(b.get(l));
+			b = b.update(p, l);
+			p = p.opponent();
+		}
+	}
+
+	@Test
+	public void testDeterministic() {
+		// the same search always visits the same nodes and picks the same move
+		for (Board b : boards) {
+			SmartAI first  = new SmartAI(Player.X, 4);
+			SmartAI second = new SmartAI(Player.X, 4);
+			assertEquals(first.bestMove(b), second.bestMove(b));
+			assertEquals(first.getNodeCount(), second.getNodeCount());
+		}
+	}
+
+	@Test
+	public void testTableEntries() {
+		TranspositionTable t = new TranspositionTable(1, Replacement.DEPTH_PREFERRED);
+		assertEquals(1 << 16, t.capacity());
+		assertEquals(0, t.probe(42));
+
+		t.store(42, 3, TranspositionTable.LOWER, Integer.MIN_VALUE, 168);
+		long e = t.probe(42);
+		assertEquals(3, TranspositionTable.depth(e));
+		assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(e));
+		assertEquals(Integer.MIN_VALUE, TranspositionTable.score(e));
+		assertEquals(168, TranspositionTable.move(e));
+
+		// a shallower entry in the same place does not replace a deeper one...
+		long other = 42 + t.capacity();
+		t.store(other, 2, TranspositionTable.EXACT, -7, TranspositionTable.NO_MOVE);
+		assertEquals(0, t.probe(other));
+		assertEquals(1, t.getCollisions());
+
+		// ...unless the deeper one is from an earlier search
+		t.newSearch();
+		t.store(other, 2, TranspositionTable.EXACT, -7, TranspositionTable.NO_MOVE);
+		assertEquals(-7, TranspositionTable.score(t.probe(other)));
+		assertEquals(TranspositionTable.NO_MOVE, TranspositionTable.move(t.probe(other)));
+		assertEquals(0, t.probe(42));
+	}
+
+	@Test
+	public void testTimeLimit() {
+		for (Board b : boards) {
+			SmartAI ai = SmartAI.withTimeLimit(Player.X, 100);
+			long start = System.nanoTime();
+			Location move = ai.bestMove(b);
+			long time = (System.nanoTime() - start) / 1000000;
+
+			assertNotNull(move);
+			assertNull(b.get(move));
+			assertTrue(ai.getSearchDepth() >= 1);
+			assertTrue("took " + time + "ms", time < 1000);
+		}
+	}
+
+	@Test
+	public void testThreads() {
+		for (Board b : boards) {
+			SmartAI ai = new SmartAI(Player.X, 3);
+			ai.setThreads(4);
+			Location move = ai.bestMove(b);
+			assertNull(b.get(move));
+			assertEquals(3, ai.getSearchDepth());
+
+			ai.setTimeLimit(50);
+			assertNull(b.get(ai.bestMove(b)));
+		}
+	}
+
+	@Test
+	public void testPondering() throws InterruptedException {
+		// X has four in a row, blocked at one end, so O's only reply is (4,6)
+		Board b = Board.EMPTY.update(Player.O, Location.of(4,1))
+		                     .update(Player.O, Location.of(0,0))
+		                     .update(Player.O, Location.of(8,8));
+		for (int c = 2; c < 6; c++)
+			b = b.update(Player.X, Location.of(4,c));
+
+		// a hit, after pondering for longer than the time limit
+		SmartAI ai = SmartAI.withTimeLimit(Player.X, 100);
+		ai.setPondering(true);
+		ai.ponder(b);
+		Thread.sleep(300);
+		Board hit = b.update(Player.O, Location.of(4,6));
+		Location move = ai.bestMove(hit);
+		assertNull(hit.get(move));
+		assertEquals(1, ai.getPonderHits());
+		assertEquals(0, ai.getPonderMisses());
+
+		// a miss: X wins instead
+		ai.ponder(b);
+		move = ai.bestMove(b.update(Player.O, Location.of(0,4)));
+		assertEquals(Location.of(4,6), move);
+		assertEquals(1, ai.getPonderMisses());
+
+		// without pondering, nothing happens
+		ai.setPondering(false);
+		ai.ponder(b);
+		ai.bestMove(hit);
+		assertEquals(1, ai.getPonderHits());
+		assertEquals(1, ai.getPonderMisses());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTableTooLarge() {
+		new TranspositionTable(TranspositionTable.MAX_SIZE * 2, Replacement.DEPTH_PREFERRED);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testNoThreads() {
+		new SmartAI(Player.X).setThreads(0);
+	}
+
+	@Test
+	public void testTakesWin() {
+		// X has four in a row, open at both ends
+		Board b = Board.EMPTY;
+		for (int c = 2; c < 6; c++)
+			b = b.update(Player.X, Location.of(4,c))
+			     .update(Player.O, Location.of(0,c));
+		Location move = new SmartAI(Player.X, 3).bestMove(b);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+
+		move = SmartAI.withTimeLimit(Player.X, 100).bestMove(b);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+
+		move = new PatternAI(Player.X, 3).bestMove(b);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+
+		SmartAI parallel = new SmartAI(Player.X, 3);
+		parallel.setThreads(3);
+		move = parallel.bestMove(b);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+	}
+}
@@ -0,0 +1,85 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import controller.MonteCarloAI;
+import model.Board;
+import model.Location;
+import model.Player;
+
+public class MonteCarloAITest {
+
+	/** Return an AI for p that plays 2000 playouts per move, with no threat solver. */
+	private static MonteCarloAI playouts(Player p) {
+		MonteCarloAI result = new MonteCarloAI(p, 0);
+		result.setPlayoutLimit(2000);
+		result.setThreatSearch(0);
+		result.setSeed(42);
+		return result;
+	}
+
+	@Test
+	public void testTakesWin() {
+		// X has four in a row, open at both ends
+		Board b = Board.EMPTY;
+		for (int c = 2; c < 6; c++)
+			b = b.update(Player.X, Location.of(4,c))
+			     .update(Player.O, Location.of(0,c));
+
+		MonteCarloAI ai = playouts(Player.X);
+		Location move = ai.bestMove(b);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+		assertTrue(ai.getPlayoutCount() >= 2000);
+
+		// O has blocked one end, and must block the other
+		b = Board.EMPTY.update(Player.X, Location.of(4,2)).update(Player.O, Location.of(4,1))
+		               .update(Player.X, Location.of(4,3)).update(Player.O, Location.of(0,0))
+		               .update(Player.X, Location.of(4,4)).update(Player.O, Location.of(0,8))
+		               .update(Player.X, Location.of(4,5));
+		assertEquals(Location.of(4,6), playouts(Player.O).bestMove(b));
+	}
+
+	@Test
+	public void testReusesTree() {
+		Board b = Board.EMPTY.update(Player.X, Location.of(4,4))
+		                     .update(Player.O, Location.of(3,4));
+		MonteCarloAI ai = playouts(Player.X);
+		Location move = ai.bestMove(b);
+		assertEquals(0, ai.getReusedNodes());
+
+		// O answers next to both marks, which was searched below X's move
+		b = b.update(Player.X, move);
+		for (Location l : b.getGeometry().locations())
+			if (b.get(l) == null && Math.abs(l.row - move.row) <= 1 && Math.abs(l.col - move.col) <= 1) {
+				b = b.update(Player.O, l);
+				break;
+			}
+		assertNull(b.get(ai.bestMove(b)));
+		assertTrue(ai.getReusedNodes() > 0);
+
+		// an unrelated board starts a new tree
+		ai.bestMove(Board.EMPTY.update(Player.X, Location.of(0,0)).update(Player.O, Location.of(8,8)));
+		assertEquals(0, ai.getReusedNodes());
+	}
+
+	@Test
+	public void testThreads() {
+		Board b = Board.EMPTY.update(Player.X, Location.of(4,4))
+		                     .update(Player.O, Location.of(3,4));
+		MonteCarloAI ai = playouts(Player.X);
+		ai.setThreads(4);
+		assertNull(b.get(ai.bestMove(b)));
+		assertTrue(ai.getPlayoutCount() >= 2000);
+
+		ai.setPlayoutLimit(0);
+		ai.setTimeLimit(50);
+		assertNull(b.get(ai.bestMove(b)));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testNoLimit() {
+		new MonteCarloAI(Player.X, 0).bestMove(Board.EMPTY);
+	}
+}
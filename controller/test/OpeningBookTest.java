@@ -0,0 +1,149 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.OpeningBook;
+import controller.SmartAI;
+import model.Board;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.Symmetry;
+
+public class OpeningBookTest {
+
+	// Book position (X to move), and its image rotated a quarter turn
+	// clockwise; the book move is *:
+	//
+	//    .........    .........
+	//    .........    .........
+	//    .........    .........
+	//    ....O*...    ...X.....
+	//    ....X....    ....XO...
+	//    ...X.....    .....*...
+	//    .........    .........
+	//    .........    .........
+	//    ........O    O........
+
+	private Board board, rotated;
+	private OpeningBook book;
+
+	@Before
+	public void setUp() {
+		board   = Board.EMPTY.update(Player.X, Location.of(4,4))
+		                     .update(Player.O, Location.of(3,4))
+		                     .update(Player.X, Location.of(5,3))
+		                     .update(Player.O, Location.of(8,8));
+		rotated = Board.EMPTY.update(Player.X, Location.of(4,4))
+		                     .update(Player.O, Location.of(4,5))
+		                     .update(Player.X, Location.of(3,3))
+		                     .update(Player.O, Location.of(8,0));
+
+		OpeningBook.Builder builder = new OpeningBook.Builder(Geometry.DEFAULT);
+		builder.add(board, Player.X, Location.of(3,5), 4);
+		builder.add(Board.EMPTY, Player.X, Location.of(4,4), 4);
+		book = builder.build();
+	}
+
+	@Test
+	public void testSymmetry() {
+		for (int s = 0; s < Symmetry.COUNT; s++)
+			for (int cell : Geometry.DEFAULT.cells())
+				assertEquals(cell, Symmetry.apply(Geometry.DEFAULT, Symmetry.inverse(s),
+				                                  Symmetry.apply(Geometry.DEFAULT, s, cell)));
+		assertEquals(Symmetry.canonicalKey(board), Symmetry.canonicalKey(rotated));
+		assertNotEquals(board.getKey(), rotated.getKey());
+		assertFalse(Symmetry.appliesTo(Geometry.of(9, 15), 4));
+	}
+
+	@Test
+	public void testLookup() {
+		assertEquals(2, book.size());
+		assertEquals(Location.of(4,4), book.lookup(Board.EMPTY, Player.X));
+		assertEquals(Location.of(3,5), book.lookup(board, Player.X));
+		assertEquals(Location.of(5,5), book.lookup(rotated, Player.X));
+		assertEquals(4, book.depth(rotated, Player.X));
+		assertNull(book.lookup(board.update(Player.X, Location.of(0,0)), Player.O));
+		assertNull(book.lookup(Board.empty(Geometry.STANDARD), Player.X));
+
+		// the same marks with O to move (in a game that O started) are not
+		// in the book
+		assertNull(book.lookup(Board.EMPTY, Player.O));
+		assertNull(book.lookup(board, Player.O));
+		assertEquals(-1, book.depth(board, Player.O));
+		SmartAI o = new SmartAI(Player.O, 1);
+		o.setOpeningBook(book);
+		o.bestMove(board);
+		assertEquals(1, o.getSearchDepth());
+
+		// a SmartAI plays the book move without searching
+		SmartAI ai = new SmartAI(Player.X);
+		ai.setOpeningBook(book);
+		assertEquals(Location.of(5,5), ai.bestMove(rotated));
+		assertEquals(0, ai.getSearchDepth());
+		assertEquals(0, ai.getNodeCount());
+	}
+
+	@Test
+	public void testFile() throws IOException {
+		Path file = Files.createTempFile("opening", ".book");
+		try {
+			OpeningBook.Builder builder = new OpeningBook.Builder(Geometry.DEFAULT);
+			builder.add(board, Player.X, Location.of(3,5), 4);
+			builder.write(file);
+
+			OpeningBook loaded = OpeningBook.load(file);
+			assertEquals(Geometry.DEFAULT, loaded.getGeometry());
+			assertEquals(Location.of(5,5), loaded.lookup(rotated, Player.X));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testFullBook() throws IOException {
+		Path file = Files.createTempFile("opening", ".book");
+		try {
+			OpeningBook.Builder builder = new OpeningBook.Builder(Geometry.DEFAULT);
+			builder.add(board, Player.X, Location.of(3,5), 4);
+			builder.write(file);
+
+			// fill every empty slot with an entry for some other position
+			byte[] bytes = Files.readAllBytes(file);
+			ByteBuffer data = ByteBuffer.wrap(bytes);
+			for (int slot = OpeningBook.HEADER; slot < bytes.length; slot += OpeningBook.SLOT)
+				if (data.getInt(slot + 8) == OpeningBook.NO_MOVE) {
+					data.putLong(slot, slot);
+					data.putInt(slot + 8, 0);
+				}
+			Files.write(file, bytes);
+
+			// a position that is not in the book is looked up in every slot
+			OpeningBook full = OpeningBook.load(file);
+			assertEquals(Location.of(5,5), full.lookup(rotated, Player.X));
+			assertNull(full.lookup(Board.EMPTY, Player.X));
+			assertEquals(-1, full.depth(Board.EMPTY, Player.O));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testNotABook() throws IOException {
+		Path file = Files.createTempFile("opening", ".book");
+		try {
+			Files.write(file, new byte[100]);
+			OpeningBook.load(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
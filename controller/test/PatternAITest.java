@@ -0,0 +1,80 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import controller.PatternAI;
+import model.Board;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+public class PatternAITest {
+
+	/**
+	 * Return a 15x15 board with the given row pattern on row 7, starting at
+	 * column col, where 'X' and 'O' are marks and any other character is an
+	 * empty cell.
+	 */
+	private static Board row(String pattern, int col) {
+		Board b = Board.empty(Geometry.STANDARD);
+		for (int i = 0; i < pattern.length(); i++)
+			if (pattern.charAt(i) == 'X')
+				b = b.update(Player.X, Location.of(7, col + i));
+			else if (pattern.charAt(i) == 'O')
+				b = b.update(Player.O, Location.of(7, col + i));
+		return b;
+	}
+
+	/** Return X's estimate of the board made by row(pattern, col). */
+	private static int estimate(String pattern, int col) {
+		return new PatternAI(Player.X).estimate(row(pattern, col));
+	}
+
+	/** Check that each pattern (in the middle of the row) beats the next. */
+	private static void assertRanked(String... patterns) {
+		for (int i = 0; i + 1 < patterns.length; i++)
+			assertTrue(patterns[i] + " should beat " + patterns[i+1],
+			           estimate(patterns[i], 5) > estimate(patterns[i+1], 5));
+	}
+
+	@Test
+	public void testRanksPatterns() {
+		// open four, four blocked at one end, open three, blocked three, ...
+		assertRanked("_XXXX_", "OXXXX_", "_XXX__", "OXXX__", "_XX___", "OXX___", "_X____");
+
+		// split patterns
+		assertRanked("_XXXX_", "XX_XX", "_XXX__", "_XX_X_", "OXXX__");
+		assertRanked("_XX___", "_X_X__", "OXX___");
+
+		// a four blocked at both ends is worth less than a blocked three
+		assertRanked("OXXX__", "OXXXXO");
+	}
+
+	@Test
+	public void testWallsBlock() {
+		// a four against the edge of the board is only a four, and a three
+		// against it only a three
+		int four = estimate("XXXX", 0), three = estimate("XXX", 0);
+		assertTrue(estimate("_XXXX_", 5) > four);
+		assertTrue(four > estimate("_XXX__", 5));
+		assertTrue(estimate("_XXX__", 5) > three);
+		assertTrue(three > estimate("_XX___", 5));
+		assertEquals(four, estimate("XXXX", 11));
+	}
+
+	@Test
+	public void testSymmetric() {
+		// O's patterns count for O exactly as X's count for X
+		Board x = row("_XX_X_", 5), o = row("_OO_O_", 5);
+		assertEquals(new PatternAI(Player.X).estimate(x), new PatternAI(Player.O).estimate(o));
+		assertEquals(-new PatternAI(Player.X).estimate(o), new PatternAI(Player.O).estimate(o));
+
+		// and the player to move gets a quarter extra
+		int still = new PatternAI(Player.X).estimate(x);
+		assertEquals(still + still / 4,
+		             new PatternAI(Player.X).estimate(new SearchBoard(x, Player.X)));
+	}
+}
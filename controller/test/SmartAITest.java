@@ -9,6 +9,7 @@ import controller.SmartAI;
 import model.Board;
 import model.Location;
 import model.Player;
+import model.SearchBoard;
 
 public class SmartAITest {
 
@@ -86,4 +87,15 @@ public class SmartAITest {
 		assertTrue(aio.estimate(boards[8]) > aio.estimate(boards[9]));
 	}
 
+	@Test
+	public void testEstimateSearchBoard() {
+		// scores computed from a SearchBoard's line counts match the Board's
+		for (Board b : boards) {
+			SearchBoard sb = new SearchBoard(b, Player.X);
+			assertEquals(aix.score(b, Player.X), aix.score(sb, Player.X));
+			assertEquals(aix.score(b, Player.O), aix.score(sb, Player.O));
+			assertEquals(aio.estimate(b), aio.estimate(sb));
+		}
+	}
+
 }
@@ -0,0 +1,189 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.SmartAI;
+import controller.SolvedCache;
+import model.Board;
+import model.Geometry;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+import model.Symmetry;
+
+public class SolvedCacheTest {
+
+	private Path        file;
+	private Board       four;   // X (to move) has an open four in row 4
+	private Board       mirror; // the same, reflected top to bottom
+	private SearchBoard x, o;   // four with X and with O to move
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("solved", ".cache");
+		Files.delete(file); // open(...) creates it
+		four = mirror = Board.EMPTY;
+		for (int c = 2; c < 6; c++) {
+			four   = four.update(Player.X, Location.of(4,c)).update(Player.O, Location.of(0,c));
+			mirror = mirror.update(Player.X, Location.of(4,c)).update(Player.O, Location.of(8,c));
+		}
+		x = new SearchBoard(four, Player.X);
+		o = new SearchBoard(four, Player.O);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testStoreAndReopen() throws IOException {
+		SolvedCache cache = SolvedCache.open(file, 1);
+		assertEquals(0, cache.probe(x));
+
+		cache.store(x, SolvedCache.WIN, 1, Location.of(4,1).index);
+		long e = cache.probe(new SearchBoard(mirror, Player.X));
+		assertEquals(SolvedCache.WIN, SolvedCache.result(e));
+		assertEquals(1, SolvedCache.depth(e));
+		assertEquals(Location.of(4,1).index, SolvedCache.move(mirror, e));
+
+		// a shallower proof does not replace a deeper one
+		cache.store(x, SolvedCache.WIN, 3, Location.of(4,6).index);
+		cache.store(x, SolvedCache.WIN, 2, Location.of(4,1).index);
+		assertEquals(3, SolvedCache.depth(cache.probe(x)));
+		cache.flush();
+
+		// the entries survive reopening the file, which keeps its size
+		SolvedCache reopened = SolvedCache.open(file, 2);
+		assertEquals(cache.capacity(), reopened.capacity());
+		e = reopened.probe(x);
+		assertEquals(Location.of(4,6).index, SolvedCache.move(four, e));
+	}
+
+	@Test
+	public void testPlayerToMove() throws IOException {
+		// the same marks with the other player to move are another position
+		SolvedCache cache = SolvedCache.open(file, 1);
+		cache.store(x, SolvedCache.WIN, 1, Location.of(4,1).index);
+		assertEquals(0, cache.probe(o));
+
+		cache.store(o, SolvedCache.LOSS, 2, SolvedCache.NO_MOVE);
+		assertEquals(SolvedCache.WIN,  SolvedCache.result(cache.probe(x)));
+		assertEquals(SolvedCache.LOSS, SolvedCache.result(cache.probe(o)));
+	}
+
+	@Test
+	public void testBoardSizes() throws IOException {
+		// find marks in the top left corner whose canonical keys are the same
+		// on 9x9 and 15x15 boards
+		Random random = new Random(1);
+		Board  small, large;
+		do {
+			small = randomBoard(random);
+			large = Board.empty(Geometry.STANDARD);
+			for (int cell : Geometry.DEFAULT.cells())
+				if (small.get(cell) != null)
+					large = large.update(small.get(cell), cell);
+		} while (Symmetry.canonicalKey(small) != Symmetry.canonicalKey(large));
+
+		// a win on 15x15 is not a win on 9x9, and its move may be off the board
+		SolvedCache cache = SolvedCache.open(file, 1);
+		cache.store(new SearchBoard(large, Player.X), SolvedCache.WIN, 1, Location.of(4,12).index);
+		assertNotEquals(0, cache.probe(new SearchBoard(large, Player.X)));
+		assertEquals(0, cache.probe(new SearchBoard(small, Player.X)));
+
+		SmartAI ai = new SmartAI(Player.X, 1);
+		ai.setSolvedCache(cache);
+		assertTrue(Geometry.DEFAULT.contains(ai.bestMove(small)));
+	}
+
+	@Test
+	public void testOldFormatEmptied() throws IOException {
+		SolvedCache cache = SolvedCache.open(file, 1);
+		cache.store(x, SolvedCache.WIN, 1, Location.of(4,1).index);
+		cache.flush();
+
+		// a file from before the version was recorded has 0 there
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4), 8);
+		}
+		assertEquals(0, SolvedCache.open(file, 1).probe(x));
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		// fill the cache twice over with shallow proofs: the deep ones survive
+		SolvedCache   cache  = SolvedCache.open(file, 1);
+		Random        random = new Random(1);
+		SearchBoard[] deep   = new SearchBoard[100];
+		for (int i = 0; i < deep.length; i++) {
+			deep[i] = new SearchBoard(randomBoard(random), Player.X);
+			cache.store(deep[i], SolvedCache.WIN, 100, SolvedCache.NO_MOVE);
+		}
+		int found = 0;
+		for (int i = 0; i < 2 * cache.capacity(); i++) {
+			SearchBoard b = new SearchBoard(randomBoard(random), Player.X);
+			cache.store(b, SolvedCache.LOSS, 1, SolvedCache.NO_MOVE);
+			if (i % 100 == 0 && cache.probe(b) != 0)
+				found++;
+		}
+		for (SearchBoard b : deep)
+			assertEquals(100, SolvedCache.depth(cache.probe(b)));
+		assertTrue(found > 0);
+	}
+
+	/** Return a 9x9 board with 6 random marks. */
+	private static Board randomBoard(Random random) {
+		Board  b = Board.EMPTY;
+		Player p = Player.X;
+		for (int n = 0; n < 6; ) {
+			Location loc = Location.of(random.nextInt(9), random.nextInt(9));
+			if (b.get(loc) == null) {
+				b = b.update(p, loc);
+				p = p.opponent();
+				n++;
+			}
+		}
+		return b;
+	}
+
+	@Test
+	public void testSharedBetweenAIs() throws IOException {
+		SolvedCache cache = SolvedCache.open(file, 1);
+
+		// a win found by the search alone is not a proof, so it is not stored
+		SmartAI searcher = new SmartAI(Player.X, 3);
+		searcher.setThreatSearch(0, 0);
+		searcher.setSolvedCache(cache);
+		searcher.bestMove(four);
+		assertEquals(0, cache.getStores());
+
+		// the first AI's threat solver proves the win
+		SmartAI first = new SmartAI(Player.X, 3);
+		first.setSolvedCache(cache);
+		Location move = first.bestMove(four);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+		assertTrue(cache.getStores() > 0);
+
+		// the second plays it without searching, on the reflected board too
+		SmartAI second = new SmartAI(Player.X, 3);
+		second.setThreatSearch(0, 0);
+		second.setSolvedCache(SolvedCache.open(file, 1));
+		move = second.bestMove(mirror);
+		assertTrue(move.equals(4,1) || move.equals(4,6));
+		assertEquals(0, second.getNodeCount());
+		assertEquals(0, second.getSearchDepth());
+	}
+}
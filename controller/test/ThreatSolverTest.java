@@ -0,0 +1,77 @@
+package controller.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.SmartAI;
+import controller.ThreatSolver;
+import controller.TranspositionTable;
+import model.Board;
+import model.Board.State;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+public class ThreatSolverTest {
+
+	// X to move can win with continuous fours, starting at (4,2):
+	//
+	//    .........
+	//    .O.......
+	//    ....O.O..
+	//    ..X......
+	//    ...X...O.
+	//    ..XO.....
+	//    .X.......
+	//    ..X.XO...
+	//    .........
+
+	private Board vcf;
+
+	@Before
+	public void setUp() {
+		int[][] xs = { {3,2}, {4,3}, {5,2}, {6,1}, {7,2}, {7,4} };
+		int[][] os = { {1,1}, {2,4}, {2,6}, {4,7}, {5,3}, {7,5} };
+		vcf = Board.EMPTY;
+		for (int i = 0; i < xs.length; i++)
+			vcf = vcf.update(Player.X, Location.of(xs[i][0], xs[i][1]))
+			         .update(Player.O, Location.of(os[i][0], os[i][1]));
+	}
+
+	@Test
+	public void testFindsWin() {
+		ThreatSolver solver = new ThreatSolver();
+		SearchBoard  b      = new SearchBoard(vcf, Player.X);
+		assertEquals(Location.of(4,2).index, solver.findWin(b, 1000));
+		assertEquals(7, solver.getWinLength());
+		assertEquals(vcf.getKey(), b.getKey());
+
+		// play it out: O can only block each four, and X still wins
+		while (b.getState() == State.NOT_OVER) {
+			b.play(solver.findWin(b, 1000));
+			if (b.getState() == State.NOT_OVER)
+				b.play(solver.findThreat(b));
+		}
+		assertEquals(Player.X, b.getWinningPlayer());
+		assertEquals(7, b.numMoves());
+
+		// O has no such win, and too small a budget finds nothing
+		assertEquals(TranspositionTable.NO_MOVE, solver.findWin(new SearchBoard(vcf, Player.O), 1000));
+		assertEquals(TranspositionTable.NO_MOVE, solver.findWin(new SearchBoard(vcf, Player.X), 2));
+	}
+
+	@Test
+	public void testSmartAIUsesSolver() {
+		assertEquals(Location.of(4,2), new SmartAI(Player.X).bestMove(vcf));
+
+		// O must block X's four in row 4
+		Board four = Board.EMPTY;
+		for (int c = 2; c < 6; c++)
+			four = four.update(Player.X, Location.of(4,c))
+			           .update(Player.O, Location.of(c == 5 ? 4 : 0, c == 5 ? 6 : c));
+		Location block = new SmartAI(Player.O).bestMove(four.update(Player.X, Location.of(8,8)));
+		assertEquals(Location.of(4,1), block);
+	}
+}
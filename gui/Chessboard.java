@@ -10,12 +10,18 @@ import javax.swing.event.MouseInputAdapter;
 
 import controller.Controller;
 import controller.DumbAI;
+import controller.MinMaxAI;
+import controller.MonteCarloAI;
+import controller.OpeningBook;
 import controller.RandomAI;
+import controller.SolvedCache;
+import controller.PatternAI;
 import controller.SmartAI;
 import model.Board;
 import model.Board.State;
 import model.Game;
 import model.GameListener;
+import model.Geometry;
 import model.Location;
 import model.Player;
 
@@ -23,13 +29,18 @@ public class Chessboard extends JFrame implements ActionListener {
 	BoardSquare[][] board;
 	Game g;
 	int size = 11;
-	String[] type = { "Human", "DumbAI", "RandomAI", "SmartAI" };
+	String[] type = { "Human", "DumbAI", "RandomAI", "SmartAI", "PatternAI", "MonteCarloAI" };
+	String[] sizes = { "9x9", "15x15", "19x19" };
+	Geometry[] geometries = { Geometry.DEFAULT, Geometry.STANDARD, Geometry.LARGE };
+	Geometry geometry = Geometry.DEFAULT;
 	JLabel choosePlayer = new JLabel("Please choose a player");
 	JButton start = new JButton("Start");
 	JLabel p1 = new JLabel("Player X: ");
 	JComboBox<String> jc1 = new JComboBox<>(type);
 	JLabel p2 = new JLabel("Player O: ");
 	JComboBox<String> jc2 = new JComboBox<>(type);
+	JLabel p3 = new JLabel("Board size: ");
+	JComboBox<String> jc3 = new JComboBox<>(sizes);
 	info i = new info("Game not start yet");
 	Box main = new Box(BoxLayout.Y_AXIS);
 	Box chessboard = new Box(BoxLayout.Y_AXIS);
@@ -64,14 +75,15 @@ public class Chessboard extends JFrame implements ActionListener {
 
 		public void paint(Graphics gra) {
 			if (this.f) {
-				gra.setFont(new Font("TimesRoman", Font.BOLD, 30));
+				int h = getHeight();
+				gra.setFont(new Font("TimesRoman", Font.BOLD, h/2));
 				gra.setColor(Color.BLACK);
-				gra.drawString(g.getBoard().get(row, col).toString(), 25, 35);
+				gra.drawString(g.getBoard().get(row, col).toString(), getWidth()/2 - h/6, h*2/3);
 			}
 		}
 
 		public Location getLoc() {
-			return new Location(row, col);
+			return Location.of(row, col);
 		}
 
 		public void gameChanged(Game g) {
@@ -99,17 +111,57 @@ public class Chessboard extends JFrame implements ActionListener {
 		}
 	}
 
-	public void addComponents() {
-		board = new BoardSquare[9][9];
-		for (int i = 0; i < 9; i++) {
+	/** Create the squares for a board with the current geometry. */
+	public void addSquares() {
+		chessboard.removeAll();
+		board = new BoardSquare[geometry.rows][geometry.cols];
+		for (int i = 0; i < geometry.rows; i++) {
 			Box row = new Box(BoxLayout.X_AXIS);
-			for (int j = 0; j < 9; j++) {
+			for (int j = 0; j < geometry.cols; j++) {
 				board[i][j] = new BoardSquare(i, j);
 				board[i][j].addMouseListener(me);
 				row.add(board[i][j]);
 			}
 			chessboard.add(row);
 		}
+		chessboard.revalidate();
+		chessboard.repaint();
+	}
+
+	/** Create a PatternAI for p, with the same time limit as the SmartAI. */
+	private static PatternAI patternAI(Player p) {
+		PatternAI result = new PatternAI(p);
+		result.setTimeLimit(SmartAI.MOVE_TIME);
+		return result;
+	}
+
+	/** The solved positions, shared by all the games' AIs, or null. */
+	private static SolvedCache solved;
+
+	/**
+	 * Give c the opening book for the current geometry and the solved
+	 * position cache, if it can use them.
+	 */
+	private void useBook(Controller c) {
+		if (c instanceof MinMaxAI) {
+			if (solved == null)
+				solved = SolvedCache.openDefault();
+			((MinMaxAI) c).setOpeningBook(OpeningBook.find(geometry));
+			((MinMaxAI) c).setSolvedCache(solved);
+		}
+	}
+
+	/**
+	 * Let c think on its opponent's time if it can and on is true, or stop it
+	 * from doing so otherwise.
+	 */
+	private static void ponder(Controller c, boolean on) {
+		if (c instanceof MinMaxAI)
+			((MinMaxAI) c).setPondering(on);
+	}
+
+	public void addComponents() {
+		addSquares();
 
 		winnerBox.add(choosePlayer);
 		start.addActionListener(this);
@@ -118,6 +170,8 @@ public class Chessboard extends JFrame implements ActionListener {
 		winnerBox.add(jc1);
 		winnerBox.add(p2);
 		winnerBox.add(jc2);
+		winnerBox.add(p3);
+		winnerBox.add(jc3);
 		winnerBox.add(i);
 
 		main.add(chessboard);
@@ -131,21 +185,40 @@ public class Chessboard extends JFrame implements ActionListener {
 		System.out.println("Player: " + p1.toString());
 		Object p2 = jc2.getSelectedItem();
 		System.out.println("Player: " + p2.toString());
+		// the AIs of the previous game stop thinking
+		ponder(playerX, false);
+		ponder(playerO, false);
 		if (p1.toString().equals("DumbAI"))
 			playerX = new DumbAI(Player.X);
 		else if (p1.toString().equals("RandomAI"))
 			playerX = new RandomAI(Player.X);
 		else if (p1.toString().equals("SmartAI"))
-			playerX = new SmartAI(Player.X);
+			playerX = SmartAI.withTimeLimit(Player.X, SmartAI.MOVE_TIME);
+		else if (p1.toString().equals("PatternAI"))
+			playerX = patternAI(Player.X);
+		else if (p1.toString().equals("MonteCarloAI"))
+			playerX = new MonteCarloAI(Player.X);
 		if (p2.toString().equals("DumbAI"))
 			playerO = new DumbAI(Player.O);
 		else if (p2.toString().equals("RandomAI"))
 			playerO = new RandomAI(Player.O);
 		else if (p2.toString().equals("SmartAI"))
-			playerO = new SmartAI(Player.O);
-		g = new Game();
-		for (int i = 0; i < 9; i++)
-			for (int j = 0; j < 9; j++)
+			playerO = SmartAI.withTimeLimit(Player.O, SmartAI.MOVE_TIME);
+		else if (p2.toString().equals("PatternAI"))
+			playerO = patternAI(Player.O);
+		else if (p2.toString().equals("MonteCarloAI"))
+			playerO = new MonteCarloAI(Player.O);
+		geometry = geometries[jc3.getSelectedIndex()];
+		useBook(playerX);
+		useBook(playerO);
+		// an AI playing against a human thinks while the human does
+		boolean humanX = p1.toString().equals("Human"), humanO = p2.toString().equals("Human");
+		ponder(playerX, !humanX && humanO);
+		ponder(playerO, !humanO && humanX);
+		addSquares();
+		g = new Game(geometry, Player.X);
+		for (int i = 0; i < geometry.rows; i++)
+			for (int j = 0; j < geometry.cols; j++)
 				g.addListener(board[i][j]);
 		g.addListener(i);
 		if (!p1.toString().equals("Human"))
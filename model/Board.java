@@ -1,6 +1,6 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.eclipse.jdt.annotation.NonNull;
 
@@ -14,65 +14,71 @@ import org.eclipse.jdt.annotation.NonNull;
  * modified COPY of the board, without modifying the original board.
  * 
  * <p>Boards have no public constructors.  Instead, they should be created by
- * starting with EMPTY and repeatedly calling update(...).
+ * starting with EMPTY (or empty(...) for boards that are not 9x9) and
+ * repeatedly calling update(...).
+ *
+ * <p>Two boards are equal if they have the same geometry and the same marks,
+ * regardless of the order in which the marks were placed.  Each board carries
+ * a 64-bit Zobrist key (see getKey()), which is also used as its hash code.
  */
-public class Board {
-	/** The number of rows on any board. */
+public class Board implements Position {
+	/** The number of rows on the default board. */
 	public static final int NUM_ROWS = 9;
 	
-	/** The number of columns on any board. */
+	/** The number of columns on the default board. */
 	public static final int NUM_COLS = 9;
 	
-	/** The empty board. */
-	public static final @NonNull Board EMPTY  = new Board();
+	/** The empty default (9x9) board. */
+	public static final @NonNull Board EMPTY  = new Board(Geometry.DEFAULT);
 	
-	/** The set of all valid locations. */
-	public static final @NonNull Iterable<Location> LOCATIONS;
+	/** The set of all valid locations on the default board. */
+	public static final @NonNull Iterable<Location> LOCATIONS = Geometry.DEFAULT.locations();
 	
 	/** The possible states of the game. */
 	public enum State { HAS_WINNER, DRAW, NOT_OVER }
 
-	private final @NonNull Player[][] board;  // contains NUM_ROWS x NUM_COLS
-	private final Victory             winner; // the winner if state is HAS_WINNER
+	// The marks are stored as one bitset per player; see Geometry for the
+	// layout.
+	private final @NonNull Geometry   geometry;
+	private final long[]              marks;    // X's words followed by O's words
+	private final int                 numBlank; // the number of empty cells
+	private final long                key;      // the Zobrist key of the marks
+	private final Player              winner;   // the winner if state is HAS_WINNER
+	private final int                 winLine;  // the number of the winning line
 	private final @NonNull State      state;
 	
-	// set up LOCATIONS
-	static {
-		ArrayList<Location> l = new ArrayList<Location>(NUM_ROWS * NUM_COLS);
-		for (int r = 0; r < NUM_ROWS; r++)
-			for (int c = 0; c < NUM_COLS; c++)
-				l.add(new Location(r,c));
-		LOCATIONS = l;
+	/** Return the empty board with the given geometry. */
+	public static @NonNull Board empty(@NonNull Geometry g) {
+		return g == Geometry.DEFAULT ? EMPTY : new Board(g);
 	}
 	
 	/** Create an empty board */
 	// Do not make this public: to create a Board, start with EMPTY and call update.
-	private Board() {
-		this.board  = new Player[NUM_ROWS][NUM_COLS];
-		this.winner = null;
-		this.state  = State.NOT_OVER;
+	private Board(@NonNull Geometry g) {
+		this.geometry = g;
+		this.marks    = g.newMarks();
+		this.numBlank = g.size();
+		this.key      = 0;
+		this.winner   = null;
+		this.winLine  = -1;
+		this.state    = State.NOT_OVER;
 	}
 	
-	/** Create a copy of other, except that locToChange is mapped to p. */
+	/** Create a copy of other, except that the cell bit is mapped to p. */
 	// Do not make this public: to create a board, start with EMPTY and call update.
 	private Board(@NonNull Board other,
-	              @NonNull Location locToChange,
+	              int bit,
 	              @NonNull Player p)
 	{
-		this.board = new Player[NUM_ROWS][NUM_COLS];
-		
-		int numBlank = NUM_ROWS * NUM_COLS;
-		for (Location loc : LOCATIONS) {
-			// invariant1: numBlank = number of nulls in this.board
-			// invariant2: all processed locations have been appropriately
-			//             updated from other
-			Player mark = loc.equals(locToChange) ? p : other.get(loc);
-			this.board[loc.row][loc.col] = mark;
-			if (mark != null)
-				numBlank--;
-		}
+		this.geometry = other.geometry;
+		this.marks    = other.marks.clone();
+		this.marks[geometry.offset(p) + (bit >>> 6)] |= 1L << bit;
+		this.numBlank = other.numBlank - 1;
+		this.key      = other.key ^ Zobrist.key(p, bit);
 
-		this.winner = checkVictoryFrom(locToChange);
+		// only lines through the new mark can have been completed
+		this.winLine  = geometry.findLine(marks, p, bit);
+		this.winner   = winLine >= 0 ? p : null;
 		if (winner != null)
 			this.state = State.HAS_WINNER;
 		else if (numBlank == 0)
@@ -81,30 +87,83 @@ public class Board {
 			this.state = State.NOT_OVER;
 	}
 
+	/** Create a copy of other, except that the cell bit is empty. */
+	// Do not make this public: see without(...).
+	private Board(@NonNull Board other, int bit) {
+		Player p = other.get(bit);
+		this.geometry = other.geometry;
+		this.marks    = other.marks.clone();
+		this.marks[geometry.offset(p) + (bit >>> 6)] &= ~(1L << bit);
+		this.numBlank = other.numBlank + 1;
+		this.key      = other.key ^ Zobrist.key(p, bit);
+		this.winner   = null;
+		this.winLine  = -1;
+		this.state    = State.NOT_OVER;
+	}
+
+	/**
+	 * Return a new board that is the same as this with the cell with the
+	 * given index empty: the board before the mark on it was placed, which
+	 * must have been the most recent mark (so the result is not over).  This
+	 * takes the same time as update(...).
+	 * @throws IllegalArgumentException if the cell is empty
+	 */
+	Board without(int index) throws IllegalArgumentException {
+		if (get(index) == null)
+			throw new IllegalArgumentException(Location.of(index) + " is empty");
+		if (numBlank + 1 == geometry.size())
+			return empty(geometry);
+		return new Board(this, index);
+	}
+
 	/**
 	 * Return a new board that is the same as this with loc mapped to p.
-	 * @throws IllegalArgumentException if loc has already been played
+	 * @throws IllegalArgumentException if loc has already been played, or is
+	 *     not on this board
 	 */
 	public Board update(@NonNull Player p, @NonNull Location loc)
 	             throws IllegalArgumentException
 	{
-		if (board[loc.row][loc.col] != null)
-			throw new IllegalArgumentException(loc + " is already taken");
+		return update(p, loc.index);
+	}
+
+	/**
+	 * Return a new board that is the same as this with the cell with the given
+	 * index (see {@link Location#index}) mapped to p.
+	 * @throws IllegalArgumentException if the cell has already been played, or
+	 *     is not on this board
+	 */
+	public Board update(@NonNull Player p, int index)
+	             throws IllegalArgumentException
+	{
+		if (!geometry.contains(index))
+			throw new IllegalArgumentException(Location.of(index) + " is not on the board");
+		
+		if (get(index) != null)
+			throw new IllegalArgumentException(Location.of(index) + " is already taken");
 
 		if (state != State.NOT_OVER)
 			throw new IllegalStateException("Can only submit moves if the game is not over");
 		
-		return new Board(this,loc,p);
+		return new Board(this,index,p);
 	}
 
 	/** Return the player who has played in loc, or null if loc is empty. */
-	public Player get(@NonNull Location loc) {
-		return this.board[loc.row][loc.col];
+	public @Override Player get(@NonNull Location loc) {
+		return geometry.get(marks, loc.index);
 	}
 	
 	/** Return the player who has played in (r,c), or null if it is empty. */
-	public Player get(int row, int col) {
-		return this.board[row][col];
+	public @Override Player get(int row, int col) {
+		return geometry.get(marks, Geometry.bit(row, col));
+	}
+	
+	/**
+	 * Return the player who has played in the cell with the given index (see
+	 * {@link Location#index}), or null if it is empty.
+	 */
+	public @Override Player get(int index) {
+		return geometry.get(marks, index);
 	}
 
 	/**
@@ -112,67 +171,60 @@ public class Board {
 	 * @throws IllegalStateException if the game has not been won.
 	 */
 	public @NonNull Victory getWinner() throws IllegalStateException {
-		return this.winner;
+		// Victories are only created on request; searching code that only
+		// needs to know the state never pays for them.
+		if (winner == null)
+			return null;
+		return new Victory(winner, geometry.lines().get(winLine));
 	}
 	
 	/**
 	 * Return the state of the board
 	 */
-	public @NonNull State getState() {
+	public @Override @NonNull State getState() {
 		return this.state;
 	}
 	
-	/**
-	 * If there is a victory going through loc, return it.
-	 * Precondition: get(loc) != null
-	 */
-	private Victory checkVictoryFrom(Location loc) {
-		Victory row   = checkVictoryFrom(loc.row, loc.col,  0,1);
-		if (row != null) return row;
-		
-		Victory col   = checkVictoryFrom(loc.row, loc.col,  1,0);
-		if (col != null) return col;
-		
-		Victory bdiag = checkVictoryFrom(loc.row, loc.col,  1,1);
-		if (bdiag != null) return bdiag;
-		
-		Victory fdiag = checkVictoryFrom(loc.row, loc.col, -1,1);
-		if (fdiag != null) return fdiag;
-		
-		return null;
+	/** Return the size and shape of this board. */
+	public @Override @NonNull Geometry getGeometry() {
+		return this.geometry;
 	}
 	
 	/**
-	 * Check to see if there is a victory going through (r,c) with slope (dr,dc).
-	 * Return a Line object if so, or null otherwise.
-	 * 
-	 * Precondition: get(r,c) != null
+	 * Return the Zobrist key of this board: a 64-bit hash of the marks on the
+	 * board that is the same for equal boards, and is very unlikely to be the
+	 * same for different boards.  The key of EMPTY is 0.
 	 */
-	private Victory checkVictoryFrom(int r, int c, int dr, int dc) {
-		int start = 1;
-		//                       (r,c)-start*(dr,dc)|      |(r,c)|
-		// invariant: board: [          ?           |  =p  |  p  |  ?  ]
-		while (start > -Line.SIZE
-		    && r - start*dr >= 0 && r - start*dr < NUM_ROWS
-		    && c - start*dc >= 0 && c - start*dc < NUM_COLS
-		    && get(r-start*dr, c-start*dc) == get(r,c)
-		)
-			start++;
-		
-		int end = 1;
-		//                       |(r,c)|      |(r,c)+end*(dr,dc)
-		// invariant: board: [ ? |  p  |  =p  |          ?          ]
-		while (end + start - 1 < Line.SIZE
-		    && r + end*dr >= 0 && r + end*dr < NUM_ROWS
-		    && c + end*dc >= 0 && c + end*dc < NUM_COLS
-		    && get(r+end*dr, c+end*dc) == get(r,c))
-			end++;
-		
-		// now:        (r,c)-start*(dr,dc)|        |(r,c)+end*(dr,dc)
-		//          [       ?             |   =p   |        ?           ]
-		if (end + start - 1 >= Line.SIZE)
-			return new Victory(get(r,c), new Line(r-(start-1)*dr, c-(start-1)*dc, dr, dc));
-		else
-			return null;
-	}	
+	public @Override long getKey() {
+		return this.key;
+	}
+	
+	/** Two boards are equal if they have the same geometry and marks. */
+	public @Override boolean equals(Object other) {
+		if (!(other instanceof Board))
+			return false;
+		Board o = (Board) other;
+		return o.key == this.key
+		    && o.geometry == this.geometry
+		    && Arrays.equals(o.marks, this.marks);
+	}
+	
+	public @Override int hashCode() {
+		return (int) (key ^ key >>> 32);
+	}
+	
+	/** Copy this board's marks into dest (which was created by newMarks). */
+	void copyMarks(long[] dest) {
+		System.arraycopy(marks, 0, dest, 0, marks.length);
+	}
+	
+	/** Return the number of the winning line, or -1 if nobody has won. */
+	int winLine() {
+		return winLine;
+	}
+	
+	/** Return the number of empty cells on this board. */
+	int numBlank() {
+		return numBlank;
+	}
 }
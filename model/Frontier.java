@@ -0,0 +1,138 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * A Frontier keeps track of the empty cells of a board that are near a mark:
+ * those within a given radius of some played cell, horizontally, vertically
+ * or diagonally (so a radius of 1 gives the neighbors of the marks, and a
+ * radius of 2 the cells in the 5x5 squares around them).  These are the
+ * cells where a search usually looks for moves.
+ *
+ * <p>The frontier is kept as a bitset of cell indices (with the same layout
+ * as a board's marks), together with the number of marks near each cell.
+ * Like {@link LineCounts}, it is updated incrementally: placing or removing a
+ * mark only touches the cells within the radius of that mark, and the cells
+ * can be listed in increasing order of index (row by row) without looking at
+ * the rest of the board.
+ *
+ * <p>Frontier objects are mutable; it is up to the owner to keep them in sync
+ * with the board they describe.
+ */
+public class Frontier {
+
+	/** The largest radius a frontier can have. */
+	public static final int MAX_RADIUS = 3;
+
+	// AROUND.get(g)[radius][cell] holds the cells of g within radius of cell,
+	// other than cell itself
+	private static final Map<Geometry, int[][][]> AROUND = new ConcurrentHashMap<>();
+
+	private final int     radius;
+	private final int[][] around; // the cells within radius of each cell
+	private final int[]   near;   // the number of marks within radius of each cell
+	private final long[]  marked; // the cells that have a mark
+	private final long[]  bits;   // the empty cells with near > 0
+	private int           size;   // the number of bits set
+
+	/**
+	 * Create the frontier of the marks currently on b, with the given radius.
+	 * @throws IllegalArgumentException if radius is not between 1 and MAX_RADIUS.
+	 */
+	public Frontier(@NonNull Position b, int radius) throws IllegalArgumentException {
+		if (radius < 1 || radius > MAX_RADIUS)
+			throw new IllegalArgumentException("invalid frontier radius: " + radius);
+		Geometry g  = b.getGeometry();
+		this.radius = radius;
+		this.around = around(g)[radius];
+		this.near   = new int[Geometry.NUM_INDICES];
+		this.marked = new long[g.words];
+		this.bits   = new long[g.words];
+		for (int cell : g.cells())
+			if (b.get(cell) != null)
+				place(cell);
+	}
+
+	/** Return the distance from a mark within which cells are in the frontier. */
+	public int radius() {
+		return radius;
+	}
+
+	/** Update the frontier for a mark placed on cell. */
+	public void place(int cell) {
+		marked[cell >>> 6] |= 1L << cell;
+		clear(cell);
+		for (int n : around[cell])
+			if (near[n]++ == 0 && (marked[n >>> 6] & 1L << n) == 0)
+				set(n);
+	}
+
+	/** Update the frontier for the mark on cell being removed. */
+	public void remove(int cell) {
+		marked[cell >>> 6] &= ~(1L << cell);
+		for (int n : around[cell])
+			if (--near[n] == 0)
+				clear(n);
+		if (near[cell] > 0)
+			set(cell);
+	}
+
+	/** Return true if the cell with the given index is in the frontier. */
+	public boolean contains(int cell) {
+		return (bits[cell >>> 6] & 1L << cell) != 0;
+	}
+
+	/** Return the number of cells in the frontier. */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Store the indices of the cells in the frontier in result, in increasing
+	 * order, and return how many there are.  result must have room for
+	 * size() cells.
+	 */
+	public int cells(int[] result) {
+		int n = 0;
+		for (int w = 0; w < bits.length; w++)
+			for (long word = bits[w]; word != 0; word &= word - 1)
+				result[n++] = w << 6 | Long.numberOfTrailingZeros(word);
+		return n;
+	}
+
+	private void set(int cell) {
+		if (!contains(cell)) {
+			bits[cell >>> 6] |= 1L << cell;
+			size++;
+		}
+	}
+
+	private void clear(int cell) {
+		if (contains(cell)) {
+			bits[cell >>> 6] &= ~(1L << cell);
+			size--;
+		}
+	}
+
+	/** Return the table of the cells around each cell of g, for each radius. */
+	private static int[][][] around(Geometry g) {
+		return AROUND.computeIfAbsent(g, geometry -> {
+			int[][][] result = new int[MAX_RADIUS + 1][Geometry.NUM_INDICES][];
+			for (int r = 1; r <= MAX_RADIUS; r++)
+				for (Location loc : geometry.locations()) {
+					int[] cells = new int[(2*r + 1) * (2*r + 1)];
+					int   n     = 0;
+					for (int dr = -r; dr <= r; dr++)
+						for (int dc = -r; dc <= r; dc++)
+							if ((dr != 0 || dc != 0) && geometry.contains(loc.row + dr, loc.col + dc))
+								cells[n++] = Geometry.bit(loc.row + dr, loc.col + dc);
+					result[r][loc.index] = Arrays.copyOf(cells, n);
+				}
+			return result;
+		});
+	}
+}
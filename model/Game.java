@@ -20,55 +20,217 @@ import org.eclipse.jdt.annotation.NonNull;
  * the model: the view should be updated if the board contains new information,
  * while the controller may wish to prompt the user for input if it has become
  * their turn.
+ *
+ * <p>Listeners may submit moves from inside gameChanged.  Such a move is
+ * checked immediately, but it is only applied after every listener has been
+ * told about the current state; the listeners are then notified again about
+ * the new state.  This way every listener sees every move, in order, and a
+ * game between listeners runs as a loop instead of a deep recursion.
+ *
+ * <p>A Game also remembers the moves that have been played, so that they can
+ * be taken back with undo() and replayed with redo().  A game can be forked
+ * to explore a variation; the fork shares the moves played so far with the
+ * original, so forking takes constant time and does not copy any boards.
+ *
+ * <p>The history is kept as one cell index per move, and only the current
+ * board is kept, so a long history (or many forks of one) costs a few words
+ * per move rather than a board per move.  undo() and redo() make the board
+ * they move to from the current one, by removing or placing a single mark.
  */
 public class Game {
 	private List<GameListener> listeners;
-	private Player next;
-	private Board  board;
+	private final Player first;   // the player who moved first
+	private Ply          current; // the most recent move
+	private Board        board;   // the board after current
+	
+	// moves that have been undone, most recently undone last
+	private final ArrayList<Ply> redo;
+	
+	private boolean notifying;    // true while listeners are being notified
+	private Ply     pending;      // a move submitted during notification, or null
+	private Board   pendingBoard; // the board after pending
 
-	/** Create a game with an empty board; p goes first. */
+	/**
+	 * A Ply records one move of the history.  Plies are immutable and point
+	 * back to the previous move, so that histories that start the same way
+	 * (such as a game and its forks) share the same plies for their common
+	 * moves.
+	 */
+	private static class Ply {
+		final Ply previous; // null for the start of the game
+		final int cell;     // the cell index of the move, or -1 at the start
+		final int number;   // the number of moves up to and including this one
+
+		Ply(Ply previous, int cell) {
+			this.previous = previous;
+			this.cell     = cell;
+			this.number   = previous == null ? 0 : previous.number + 1;
+		}
+	}
+
+	/** Create a game with an empty board of the given size; p goes first. */
+	public Game(Geometry geometry, Player p) {
+		this(p, new Ply(null, -1), Board.empty(geometry));
+	}
+	
+	/** Create a game with an empty 9x9 board; p goes first. */
 	public Game(Player p) {
-		this.board = Board.EMPTY;
-		this.next  = p;
-		this.listeners = new ArrayList<GameListener>();
+		this(Geometry.DEFAULT, p);
 	}
 	
-	/** Create a game with an empty board; X goes first. */
+	/** Create a game with an empty 9x9 board; X goes first. */
 	public Game() {
 		this(Player.X);
 	}
 	
+	/** Create a game whose history ends at current, with the given board. */
+	private Game(Player first, Ply current, Board board) {
+		this.first     = first;
+		this.current   = current;
+		this.board     = board;
+		this.redo      = new ArrayList<Ply>();
+		this.listeners = new ArrayList<GameListener>();
+	}
+	
+	/**
+	 * Return a new game that starts out in the same state as this one, with
+	 * the same history, but no listeners and nothing to redo.  Moves made in
+	 * the new game do not affect this one, and vice versa.
+	 */
+	public Game fork() {
+		return new Game(first, current, board);
+	}
+	
 	/**
 	 * Add a listener to this game: causes the listener to be notified now and
 	 * at any point in the future when this game's state changes.
 	 */
 	public void addListener(@NonNull GameListener listener) {
 		this.listeners.add(listener);
-		listener.gameChanged(this);
+		if (notifying) {
+			// it will be told about the current state in the current round
+			return;
+		}
+		notifying = true;
+		try {
+			listener.gameChanged(this);
+		} finally {
+			notifying = false;
+		}
+		notifyListeners();
 	}
 
 	/** Return the player who should play next. */
 	public @NonNull Player nextTurn() {
-		return this.next;
+		return current.number % 2 == 0 ? first : first.opponent();
 	}
 	
 	/**
 	 * Update the game in response to player p playing in location loc.
+	 * Any moves that could have been redone are forgotten.
 	 * @throws IllegalArgumentException if p is not currently allowed to play
 	 *     in location loc (for example if it is not p's turn, or if loc has
 	 *     already been played)
+	 * @throws IllegalStateException if called from a listener after another
+	 *     listener has already submitted a move for the current state
 	 */
 	public void submitMove(@NonNull Player p, @NonNull Location loc)
-	     throws IllegalArgumentException
+	     throws IllegalArgumentException, IllegalStateException
 	{
-		if (p != next)
+		if (p != nextTurn())
 			throw new IllegalArgumentException("it is not " + p + "'s turn");
+		if (pending != null)
+			throw new IllegalStateException("a move has already been submitted");
+		
+		this.pendingBoard = board.update(p, loc);
+		this.pending      = new Ply(current, loc.index);
+		this.redo.clear();
+		notifyListeners();
+	}
+	
+	/**
+	 * Take back the most recent move.
+	 * @throws IllegalStateException if no moves have been made, or if called
+	 *     while listeners are being notified
+	 */
+	public void undo() throws IllegalStateException {
+		if (!canUndo())
+			throw new IllegalStateException("there is no move to undo");
 		
-		this.board = this.board.update(p, loc);
-		this.next  = this.next.opponent();
+		this.redo.add(current);
+		this.pending      = current.previous;
+		this.pendingBoard = board.without(current.cell);
+		notifyListeners();
+	}
+	
+	/**
+	 * Replay the most recently undone move.
+	 * @throws IllegalStateException if there is no move to redo, or if called
+	 *     while listeners are being notified
+	 */
+	public void redo() throws IllegalStateException {
+		if (!canRedo())
+			throw new IllegalStateException("there is no move to redo");
+		
+		this.pending      = redo.remove(redo.size() - 1);
+		this.pendingBoard = board.update(nextTurn(), pending.cell);
+		notifyListeners();
+	}
+	
+	/** Return true if there is a move that can be undone now. */
+	public boolean canUndo() {
+		return !notifying && current.previous != null;
+	}
+	
+	/** Return true if there is a move that can be redone now. */
+	public boolean canRedo() {
+		return !notifying && !redo.isEmpty();
+	}
+	
+	/** Return the number of moves that have been made. */
+	public int numMoves() {
+		return current.number;
+	}
+	
+	/**
+	 * Return the cell indices (see {@link Location#index}) of the moves that
+	 * have been made, in the order they were made.
+	 */
+	public int[] getMoves() {
+		int[] result = new int[current.number];
+		for (Ply p = current; p.previous != null; p = p.previous)
+			result[p.number - 1] = p.cell;
+		return result;
+	}
+	
+	/**
+	 * Make pending the current state (if there is one) and notify the
+	 * listeners, repeating until a round of notifications does not submit a
+	 * move.  If we are already notifying listeners, do nothing: the loop that
+	 * is already running will pick up the pending move when the current round
+	 * finishes.
+	 */
+	private void notifyListeners() {
+		if (notifying)
+			return;
 		
-		for (GameListener g : listeners)
-			g.gameChanged(this);
+		notifying = true;
+		try {
+			while (pending != null) {
+				this.current      = pending;
+				this.board        = pendingBoard;
+				this.pending      = null;
+				this.pendingBoard = null;
+				
+				// note: listeners may be added during the loop
+				for (int i = 0; i < listeners.size(); i++)
+					listeners.get(i).gameChanged(this);
+			}
+		} finally {
+			notifying    = false;
+			pending      = null;
+			pendingBoard = null;
+		}
 	}
 
 	public Board getBoard() {
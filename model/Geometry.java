@@ -0,0 +1,253 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * A Geometry describes the size of a board, and holds tables that depend only
+ * on the size: the valid locations, the lines that can win, and the neighbors
+ * of each cell.  These tables are computed once when the Geometry is created,
+ * so that code that runs for every move (such as the AIs) never has to
+ * recompute them.
+ *
+ * <p>Geometries are immutable, and there is only one Geometry for each size;
+ * use {@link #of(int, int)} or one of the predefined constants to get one.
+ */
+public class Geometry {
+	/** The largest number of rows on any board. */
+	public static final int MAX_ROWS = 19;
+
+	/** The largest number of columns on any board. */
+	public static final int MAX_COLS = 19;
+
+	/** The 9x9 board; this is the geometry of {@link Board#EMPTY}. */
+	public static final @NonNull Geometry DEFAULT;
+
+	/** The standard 15x15 Gomoku board. */
+	public static final @NonNull Geometry STANDARD;
+
+	/** The 19x19 (Go sized) board. */
+	public static final @NonNull Geometry LARGE;
+
+	// The cells of a board are stored in bitsets, where cell (r,c) is bit
+	// r*STRIDE + c.  The stride is the same for every geometry, and is larger
+	// than the number of columns, so every row ends with at least one empty
+	// column.  Shifting a row or diagonal past the edge of the board therefore
+	// runs into a blank instead of wrapping around onto the next row.
+	//
+	// The bit for a cell is also its cell index (see Location.index).
+	static final int STRIDE = MAX_COLS + 1;
+
+	/** The cell index of every location is less than NUM_INDICES. */
+	public static final int NUM_INDICES = MAX_ROWS * STRIDE;
+
+	private static final Geometry[][] cache = new Geometry[MAX_ROWS + 1][MAX_COLS + 1];
+
+	static {
+		DEFAULT  = of(Board.NUM_ROWS, Board.NUM_COLS);
+		STANDARD = of(15, 15);
+		LARGE    = of(19, 19);
+	}
+
+	/** The number of rows on this board. */
+	public final int rows;
+
+	/** The number of columns on this board. */
+	public final int cols;
+
+	/** The number of 64-bit words needed to hold a bitset of the cells. */
+	final int words;
+
+	private final List<Location> locations;     // in row-major order
+	private final int[]          cells;         // the indices of locations
+	private final List<Line>     lines;
+	private final int[][]        linesThrough;  // indexed by cell index
+	private final int[][]        neighbors;     // indexed by cell index
+	private final Location[][]   neighborLocs;  // neighbors, as Locations
+
+	/**
+	 * Return the geometry with the given number of rows and columns.
+	 * @throws IllegalArgumentException if rows or cols is not in the range
+	 *     1..MAX_ROWS or 1..MAX_COLS respectively.
+	 */
+	public static synchronized @NonNull Geometry of(int rows, int cols)
+	                                    throws IllegalArgumentException
+	{
+		if (!( 1 <= rows && rows <= MAX_ROWS
+		    && 1 <= cols && cols <= MAX_COLS))
+			throw new IllegalArgumentException("unsupported board size " + rows + "x" + cols);
+		if (cache[rows][cols] == null)
+			cache[rows][cols] = new Geometry(rows, cols);
+		return cache[rows][cols];
+	}
+
+	private Geometry(int rows, int cols) {
+		this.rows  = rows;
+		this.cols  = cols;
+		this.words = (rows * STRIDE + 63) / 64;
+		this.cells = new int[rows * cols];
+
+		ArrayList<Location> l = new ArrayList<Location>(rows * cols);
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++) {
+				cells[l.size()] = bit(r,c);
+				l.add(Location.of(r,c));
+			}
+		this.locations = Collections.unmodifiableList(l);
+
+		this.neighbors    = new int[rows * STRIDE][];
+		this.neighborLocs = new Location[rows * STRIDE][];
+		for (Location loc : locations) {
+			ArrayList<Location> n = new ArrayList<Location>(8);
+			for (int dr = -1; dr <= 1; dr++)
+				for (int dc = -1; dc <= 1; dc++)
+					if ((dr != 0 || dc != 0) && contains(loc.row + dr, loc.col + dc))
+						n.add(Location.of(loc.row + dr, loc.col + dc));
+			neighborLocs[loc.index] = n.toArray(new Location[n.size()]);
+			neighbors[loc.index]    = new int[n.size()];
+			for (int i = 0; i < n.size(); i++)
+				neighbors[loc.index][i] = n.get(i).index;
+		}
+
+		if (rows == Board.NUM_ROWS && cols == Board.NUM_COLS)
+			this.lines = Line.DEFAULT_LINES;
+		else
+			this.lines = Collections.unmodifiableList(Line.allLines(rows, cols));
+
+		// count the lines through each cell, then fill in their numbers
+		int[] numThrough = new int[rows * STRIDE];
+		for (Line line : lines)
+			for (int cell : line.cells())
+				numThrough[cell]++;
+		this.linesThrough = new int[rows * STRIDE][];
+		for (int cell : cells)
+			linesThrough[cell] = new int[numThrough[cell]];
+		for (int i = 0; i < lines.size(); i++)
+			for (int cell : lines.get(i).cells())
+				linesThrough[cell][--numThrough[cell]] = i;
+	}
+
+	/** Return the number of cells on this board. */
+	public int size() {
+		return rows * cols;
+	}
+
+	/** Return true if (row,col) is on this board. */
+	public boolean contains(int row, int col) {
+		return 0 <= row && row < rows && 0 <= col && col < cols;
+	}
+
+	/** Return true if loc is on this board. */
+	public boolean contains(@NonNull Location loc) {
+		return contains(loc.row, loc.col);
+	}
+
+	/** Return all of the locations on this board, in row-major order. */
+	public @NonNull List<Location> locations() {
+		return locations;
+	}
+
+	/**
+	 * Return the cell indices of all of the locations on this board, in
+	 * row-major order.  The returned array is shared and must not be modified.
+	 */
+	public @NonNull int[] cells() {
+		return cells;
+	}
+
+	/** Return true if index is the cell index of a location on this board. */
+	public boolean contains(int index) {
+		return 0 <= index && index < rows * STRIDE && index % STRIDE < cols;
+	}
+
+	/** Return all of the lines that fit on this board. */
+	public @NonNull List<Line> lines() {
+		return lines;
+	}
+
+	/**
+	 * Return the numbers of the lines that pass through the cell with the given
+	 * index, where line i is lines().get(i).  There are at most 4*Line.SIZE
+	 * such lines.  The returned array is shared and must not be modified.
+	 * Precondition: contains(index)
+	 */
+	public @NonNull int[] linesThrough(int index) {
+		return linesThrough[index];
+	}
+
+	/** Return the location in the middle of the board. */
+	public @NonNull Location center() {
+		return Location.of(rows/2, cols/2);
+	}
+
+	/**
+	 * Return the (up to 8) locations on this board that are adjacent to loc,
+	 * horizontally, vertically or diagonally.  The returned array is shared
+	 * and must not be modified.
+	 * Precondition: contains(loc)
+	 */
+	public @NonNull Location[] neighbors(@NonNull Location loc) {
+		return neighborLocs[loc.index];
+	}
+
+	/**
+	 * Return the cell indices of the (up to 8) cells on this board that are
+	 * adjacent to the cell with the given index.  The returned array is shared
+	 * and must not be modified.
+	 * Precondition: contains(index)
+	 */
+	public @NonNull int[] neighbors(int index) {
+		return neighbors[index];
+	}
+
+	public @Override String toString() {
+		return rows + "x" + cols;
+	}
+
+	/** Return the bit that holds the mark for (row,col). */
+	static int bit(int row, int col) {
+		return row * STRIDE + col;
+	}
+
+	/** Return the index in a marks array of the first word of p's bitset. */
+	int offset(Player p) {
+		return p == Player.X ? 0 : words;
+	}
+
+	/** Return a new marks array, big enough to hold both players' bitsets. */
+	long[] newMarks() {
+		return new long[2 * words];
+	}
+
+	/** Return the player who has a mark on bit of marks, or null. */
+	Player get(long[] marks, int bit) {
+		long mask = 1L << bit;
+		if ((marks[bit >>> 6] & mask) != 0)
+			return Player.X;
+		if ((marks[words + (bit >>> 6)] & mask) != 0)
+			return Player.O;
+		return null;
+	}
+
+	/**
+	 * If p has marks in every cell of one of the lines through cell, return
+	 * the number of that line, otherwise return -1.
+	 */
+	int findLine(long[] marks, Player p, int cell) {
+		int off = offset(p);
+		for (int line : linesThrough[cell]) {
+			int n = 0;
+			for (int c : lines.get(line).cells()) {
+				if ((marks[off + (c >>> 6)] & 1L << c) == 0)
+					break;
+				n++;
+			}
+			if (n == Line.SIZE)
+				return line;
+		}
+		return -1;
+	}
+}
@@ -1,7 +1,9 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -14,45 +16,54 @@ public class Line implements Iterable<Location> {
 	/** The number of marks in a row required for victory. */
 	public static final int SIZE = 5;
 	
-	/** The set of all valid lines */
+	/** The set of all valid lines on the default (9x9) board */
 	public static final Iterable<Line> ALL_LINES;
 	
+	// ALL_LINES as a list, for sharing with Geometry.DEFAULT
+	static final List<Line> DEFAULT_LINES;
+	
 	private final int r, c;
 	private final int dr, dc;
+	private final int[] cells; // the cell indices of the locations in the line
 	
 	static {
-		// set up LINES
+		DEFAULT_LINES = Collections.unmodifiableList(allLines(Board.NUM_ROWS, Board.NUM_COLS));
+		ALL_LINES     = DEFAULT_LINES;
+	}
+	
+	/** Return a new list of all of the lines that fit on a rows x cols board. */
+	static List<Line> allLines(int rows, int cols) {
 		ArrayList<Line> lines = new ArrayList<Line>();
 
 		// Notes on bounds:
 		//    bounds on start of segment <=====>   bounds on end of segment
-		//    c < NUM_COLS - SIZE + 1    <=====>   c + (SIZE-1)*1 < NUM_COLS
-		//    r < NUM_ROWS - SIZE + 1    <=====>   r + (SIZE-1)*1 < NUM_ROWS
+		//    c < cols - SIZE + 1        <=====>   c + (SIZE-1)*1 < cols
+		//    r < rows - SIZE + 1        <=====>   r + (SIZE-1)*1 < rows
 		//    SIZE - 1 <= r              <=====>   0 <= r + (SIZE-1)*(-1)
 		//    SIZE - 1 <= c              <=====>   0 <= c + (SIZE-1)*(-1)
 
 		// horizontal lines
-		for (int r = 0; r < Board.NUM_ROWS; r++)
-			for (int c = 0; c < Board.NUM_COLS - SIZE + 1; c++)
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols - SIZE + 1; c++)
 				lines.add(new Line(r,c,0,1)); 
 		
 		// vertical lines
-		for (int r = 0; r < Board.NUM_ROWS - SIZE + 1; r++)
-			for (int c = 0; c < Board.NUM_COLS; c++)
+		for (int r = 0; r < rows - SIZE + 1; r++)
+			for (int c = 0; c < cols; c++)
 				lines.add(new Line(r,c,1,0));
 		
 
 		// lines going northeast
-		for (int r = SIZE-1; r < Board.NUM_ROWS; r++)
-			for (int c = 0; c < Board.NUM_COLS - SIZE + 1; c++)
+		for (int r = SIZE-1; r < rows; r++)
+			for (int c = 0; c < cols - SIZE + 1; c++)
 				lines.add(new Line(r,c,-1,1));
 		
 		// lines going southeast
-		for (int r = 0; r < Board.NUM_ROWS - SIZE + 1; r++)
-			for (int c = 0; c < Board.NUM_COLS - SIZE + 1; c++)
+		for (int r = 0; r < rows - SIZE + 1; r++)
+			for (int c = 0; c < cols - SIZE + 1; c++)
 				lines.add(new Line(r,c,1,1));
 		
-		ALL_LINES = lines;
+		return lines;
 	}
 	
 	/**
@@ -70,8 +81,8 @@ public class Line implements Iterable<Location> {
 	public Line(int r, int c, int dr, int dc) throws IllegalArgumentException {
 		// check the bounds for the start and endpoint (location constructor throws
 		// exception if not):
-		new Location(r,c);
-		new Location(r + (SIZE-1)*dr, c + (SIZE-1)*dc);
+		Location.of(r,c);
+		Location.of(r + (SIZE-1)*dr, c + (SIZE-1)*dc);
 		
 		// check that (dr,dc) defines a valid line
 		if (dr < -1 || dr > 1 || dc < -1 || dc > 1)
@@ -81,6 +92,10 @@ public class Line implements Iterable<Location> {
 		
 		this.r = r;    this.dr = dr;
 		this.c = c;    this.dc = dc;
+		
+		this.cells = new int[SIZE];
+		for (int i = 0; i < SIZE; i++)
+			cells[i] = Location.of(r + i*dr, c + i*dc).index;
 	}
 	
 	/** Iterate over the locations in this line */
@@ -88,6 +103,15 @@ public class Line implements Iterable<Location> {
 		return new LocationIterator();
 	}
 	
+	/**
+	 * Return the cell indices (see {@link Location#index}) of the locations
+	 * in this line, in order.  The returned array is shared and must not be
+	 * modified.
+	 */
+	public int[] cells() {
+		return cells;
+	}
+	
 	/** Return true if the given location is in this line */
 	public boolean contains(int r, int c) {
 		// if (r,c) is on the line, then (r,c) = (this.r,this.c) + n(dr,dc)
@@ -126,10 +150,10 @@ public class Line implements Iterable<Location> {
 
 		@Override
 		public Location next() {
-			if (i >= 5)
+			if (i >= SIZE)
 				throw new NoSuchElementException();
 			i = i+1;
-			return new Location(r + (i-1)*dr, c + (i-1)*dc);
+			return Location.of(r + (i-1)*dr, c + (i-1)*dc);
 		}
 	}
 
@@ -0,0 +1,187 @@
+package model;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * A LineCodes object keeps an encoding of every full row, column and diagonal
+ * of a board (the "runs" of the board), so that the contents of any window
+ * of WINDOW adjacent cells can be read as a single small integer.  Those
+ * integers can be used as indices into a precomputed table of pattern scores
+ * (see {@link #windowSum(int[])}).
+ *
+ * <p>Each cell is encoded in two bits: EMPTY, X, O, or WALL for the positions
+ * just past either end of a run, so that patterns can tell whether they are
+ * blocked by the edge of the board.  The window starting at position k of a
+ * run has the code of its i-th cell in bits 2i and 2i+1.  Only runs with at
+ * least Line.SIZE cells are encoded, since nothing can be won in the others.
+ *
+ * <p>Like {@link LineCounts}, the codes are updated incrementally: placing or
+ * removing a mark only touches the four runs through that cell.
+ *
+ * <p>LineCodes objects are mutable; it is up to the owner to keep them in
+ * sync with the board they describe.
+ */
+public class LineCodes {
+	/** The codes of the contents of a cell. */
+	public static final int EMPTY = 0, X = 1, O = 2, WALL = 3;
+
+	/** The number of cells in a window. */
+	public static final int WINDOW = 6;
+
+	/** The number of different window codes (the size of a pattern table). */
+	public static final int NUM_CODES = 1 << 2 * WINDOW;
+
+	private static final int MASK = NUM_CODES - 1;
+
+	// the directions of the runs: along a row, down a column, and along the
+	// two diagonals
+	private static final int[] DR = { 0, 1, 1,  1 };
+	private static final int[] DC = { 1, 0, 1, -1 };
+
+	private final @NonNull Geometry geometry;
+
+	// run[d][cell] is the number of the run in direction d through cell (or
+	// -1 if it is too short), and pos[d][cell] is the position of cell in that
+	// run, counting the wall before the run as position 0
+	private final int[][] run;
+	private final int[][] pos;
+
+	private final long[] codes;   // the codes of the runs, including walls
+	private final int[]  windows; // the number of windows in each run
+
+	// the tables whose sums are being kept up to date: if tables[i] is not
+	// null, sums[i] is windowSum(tables[i])
+	private final int[][] tables = new int[MAX_TABLES][];
+	private final int[]   sums   = new int[MAX_TABLES];
+
+	/** The number of tables whose sums can be kept up to date at once. */
+	public static final int MAX_TABLES = 2;
+
+	/** Create codes for the marks currently on b. */
+	public LineCodes(@NonNull Position b) {
+		this.geometry = b.getGeometry();
+		this.run = new int[4][Geometry.NUM_INDICES];
+		this.pos = new int[4][Geometry.NUM_INDICES];
+
+		// count the runs first, so that the arrays can be sized
+		int numRuns = 0;
+		for (int d = 0; d < 4; d++)
+			for (int cell : geometry.cells())
+				if (isStart(cell, d) && length(cell, d) >= Line.SIZE)
+					numRuns++;
+		this.codes   = new long[numRuns];
+		this.windows = new int[numRuns];
+
+		int n = 0;
+		for (int d = 0; d < 4; d++) {
+			Arrays.fill(run[d], -1);
+			for (int cell : geometry.cells()) {
+				int length = length(cell, d);
+				if (!isStart(cell, d) || length < Line.SIZE)
+					continue;
+
+				int r = cell / Geometry.STRIDE, c = cell % Geometry.STRIDE;
+				for (int i = 0; i < length; i++) {
+					int here = Geometry.bit(r + i * DR[d], c + i * DC[d]);
+					run[d][here] = n;
+					pos[d][here] = i + 1;
+				}
+				codes[n]   = (long) WALL | (long) WALL << 2 * (length + 1);
+				windows[n] = length + 2 - WINDOW + 1;
+				n++;
+			}
+		}
+
+		for (int cell : geometry.cells()) {
+			Player p = b.get(cell);
+			if (p != null)
+				place(p, cell);
+		}
+	}
+
+	/** Return true if cell is the first cell of a run in direction d. */
+	private boolean isStart(int cell, int d) {
+		int r = cell / Geometry.STRIDE, c = cell % Geometry.STRIDE;
+		return !geometry.contains(r - DR[d], c - DC[d]);
+	}
+
+	/** Return the number of cells in direction d from cell to the edge. */
+	private int length(int cell, int d) {
+		int r = cell / Geometry.STRIDE, c = cell % Geometry.STRIDE;
+		int result = 0;
+		while (geometry.contains(r + result * DR[d], c + result * DC[d]))
+			result++;
+		return result;
+	}
+
+	/** Record that p has placed a mark in the cell with the given index. */
+	public void place(@NonNull Player p, int cell) {
+		update(cell, p.ordinal() + 1);
+	}
+
+	/** Record that the mark in the cell with the given index has been removed. */
+	public void remove(@NonNull Player p, int cell) {
+		update(cell, EMPTY);
+	}
+
+	/** Set the code of cell to value in each run through it. */
+	private void update(int cell, int value) {
+		for (int d = 0; d < 4; d++) {
+			int n = run[d][cell];
+			if (n < 0)
+				continue;
+			int  at   = pos[d][cell];
+			long code = codes[n];
+			long next = code & ~(3L << 2 * at) | (long) value << 2 * at;
+
+			// the windows starting from at - WINDOW + 1 to at contain cell
+			int first = Math.max(0, at - WINDOW + 1);
+			int last  = Math.min(at, windows[n] - 1);
+			for (int t = 0; t < MAX_TABLES && tables[t] != null; t++) {
+				int[] table = tables[t];
+				for (int k = first; k <= last; k++)
+					sums[t] += table[(int) (next >>> 2 * k) & MASK]
+					         - table[(int) (code >>> 2 * k) & MASK];
+			}
+			codes[n] = next;
+		}
+	}
+
+	/**
+	 * Return the sum of table[w] over the codes w of all windows of all runs.
+	 * table must have NUM_CODES entries.
+	 *
+	 * <p>The first call with a given table adds up every window; after that,
+	 * the sum is kept up to date as marks are placed and removed, so further
+	 * calls with the same table take constant time.  Sums are kept for the
+	 * last MAX_TABLES tables.  table must not be modified afterwards.
+	 */
+	public int windowSum(@NonNull int[] table) {
+		int t = 0;
+		while (t < MAX_TABLES && tables[t] != null && tables[t] != table)
+			t++;
+		if (t == MAX_TABLES) {
+			// forget the oldest table
+			System.arraycopy(tables, 1, tables, 0, MAX_TABLES - 1);
+			System.arraycopy(sums,   1, sums,   0, MAX_TABLES - 1);
+			t = MAX_TABLES - 1;
+			tables[t] = null;
+		}
+		if (tables[t] == null) {
+			int sum = 0;
+			for (int n = 0; n < codes.length; n++)
+				for (int k = 0; k < windows[n]; k++)
+					sum += table[(int) (codes[n] >>> 2 * k) & MASK];
+			tables[t] = table;
+			sums[t]   = sum;
+		}
+		return sums[t];
+	}
+
+	/** Return the geometry of the board these codes describe. */
+	public @NonNull Geometry getGeometry() {
+		return geometry;
+	}
+}
@@ -0,0 +1,122 @@
+package model;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * A LineCounts object keeps track of how many marks each player has in each
+ * line of a board (see {@link Geometry#lines()}).
+ *
+ * <p>The counts are updated incrementally: placing or removing a mark only
+ * touches the lines that pass through that cell (see
+ * {@link Geometry#linesThrough(int)}), so code that needs to know about every
+ * line (such as an evaluation function or a win check) can read the counts
+ * instead of looking at the cells of every line.
+ *
+ * <p>A LineCounts object can also keep a weighted sum of the lines for each
+ * player up to date (see {@link #weightedSum(Player, int[])}), which is
+ * enough to evaluate a board with a line-based heuristic without looking at
+ * every line.
+ *
+ * <p>LineCounts objects are mutable; it is up to the owner to keep them in
+ * sync with the board they describe.
+ */
+public class LineCounts {
+	private final @NonNull Geometry geometry;
+
+	// counts[2*i] and counts[2*i+1] are the numbers of marks of X and O in line i
+	private final byte[] counts;
+
+	// if weights is not null, sums[p.ordinal()] is weightedSum(p, weights)
+	private int[]        weights;
+	private final int[]  sums = new int[2];
+
+	/** Create counts for an empty board with the given geometry. */
+	public LineCounts(@NonNull Geometry geometry) {
+		this.geometry = geometry;
+		this.counts   = new byte[2 * geometry.lines().size()];
+	}
+
+	/** Create counts for the marks currently on b. */
+	public LineCounts(@NonNull Position b) {
+		this(b.getGeometry());
+		for (int cell : geometry.cells()) {
+			Player p = b.get(cell);
+			if (p != null)
+				place(p, cell);
+		}
+	}
+
+	/** Return the number of marks p has in line number line. */
+	public int count(int line, @NonNull Player p) {
+		return counts[2*line + p.ordinal()];
+	}
+
+	/**
+	 * Record that p has placed a mark in the cell with the given index.  If
+	 * this gives p Line.SIZE marks in some line (that is, p has won), return
+	 * the number of that line; otherwise return -1.
+	 */
+	public int place(@NonNull Player p, int cell) {
+		int me  = p.ordinal(), them = 1 - me;
+		int won = -1;
+		for (int line : geometry.linesThrough(cell)) {
+			int mine   = counts[2*line + me];
+			int theirs = counts[2*line + them];
+			if (weights != null) {
+				if (theirs == 0)
+					sums[me]   += weights[mine + 1] - weights[mine];
+				if (mine == 0)
+					sums[them] -= weights[theirs]; // the line is now blocked
+			}
+			if ((counts[2*line + me] = (byte) (mine + 1)) == Line.SIZE)
+				won = line;
+		}
+		return won;
+	}
+
+	/** Record that p's mark has been removed from the cell with the given index. */
+	public void remove(@NonNull Player p, int cell) {
+		int me = p.ordinal(), them = 1 - me;
+		for (int line : geometry.linesThrough(cell)) {
+			int mine   = --counts[2*line + me];
+			int theirs = counts[2*line + them];
+			if (weights != null) {
+				if (theirs == 0)
+					sums[me]   -= weights[mine + 1] - weights[mine];
+				if (mine == 0)
+					sums[them] += weights[theirs]; // the line is open again
+			}
+		}
+	}
+
+	/**
+	 * Return the sum of weights[n] over all lines that do not contain any of
+	 * p's opponent's marks, where n is the number of marks p has in the line.
+	 *
+	 * <p>The first call with a given weights array adds up every line; after
+	 * that, the sums for both players are kept up to date as marks are placed
+	 * and removed, so further calls with the same array take constant time.
+	 * weights must have Line.SIZE + 1 entries, and must not be modified
+	 * afterwards.
+	 */
+	public int weightedSum(@NonNull Player p, @NonNull int[] weights) {
+		if (weights != this.weights) {
+			int lines = geometry.lines().size();
+			sums[0] = sums[1] = 0;
+			for (int line = 0; line < lines; line++) {
+				int x = counts[2*line], o = counts[2*line + 1];
+				if (o == 0)
+					sums[0] += weights[x];
+				if (x == 0)
+					sums[1] += weights[o];
+			}
+			this.weights = weights;
+		}
+		return sums[p.ordinal()];
+	}
+
+	/** Return the geometry of the board these counts describe. */
+	public @NonNull Geometry getGeometry() {
+		return geometry;
+	}
+}
@@ -2,29 +2,74 @@ package model;
 
 /**
  * A Location is a (row, column) pair, where the row and column are
- * in the ranges 0..NUM_ROWS-1 and 0..NUM_COLS-1 respectively.
+ * in the ranges 0..MAX_ROWS-1 and 0..MAX_COLS-1 respectively (see
+ * {@link Geometry}).  Use {@link Geometry#contains(Location)} to check that a
+ * location is on a particular board.
  * 
- * <p>Locations are immutable.
+ * <p>Each location also has a packed cell index, which is the same on every
+ * board.  Performance sensitive code can use cell indices in place of
+ * Location objects (see for example {@link Board#get(int)} and
+ * {@link Geometry#cells()}).
+ * 
+ * <p>Locations are immutable.  Rather than creating new Locations, use
+ * {@link #of(int, int)} or {@link #of(int)}, which return a shared instance.
  */
 public class Location {
-	/** the row number, in the range 0..Board.NUM_ROWS-1 */
+	/** the row number, in the range 0..Geometry.MAX_ROWS-1 */
 	public final int row;
 
 
-	/** the column number, in the range 0..Board.NUM_COLS-1 */
+	/** the column number, in the range 0..Geometry.MAX_COLS-1 */
 	public final int col;
 
 
+	/** the packed cell index of (row,col), which is row*Geometry.STRIDE + col */
+	public final int index;
+
+
+	// the shared instances, indexed by cell index; cells in the unused
+	// column at the end of each row are null
+	private static final Location[] cache = new Location[Geometry.MAX_ROWS * Geometry.STRIDE];
+
+	static {
+		for (int r = 0; r < Geometry.MAX_ROWS; r++)
+			for (int c = 0; c < Geometry.MAX_COLS; c++)
+				cache[r * Geometry.STRIDE + c] = new Location(r,c);
+	}
+
+	/**
+	 * Return the location (row,col).
+	 * @throws IllegalArgumentException if row or col is out of range.
+	 */
+	public static Location of(int row, int col) throws IllegalArgumentException {
+		if (!( 0 <= row && row < Geometry.MAX_ROWS
+		    && 0 <= col && col < Geometry.MAX_COLS))
+			throw new IllegalArgumentException("location out of bounds");
+		return cache[row * Geometry.STRIDE + col];
+	}
+
+	/**
+	 * Return the location with the given cell index.
+	 * @throws IllegalArgumentException if index is not a valid cell index.
+	 */
+	public static Location of(int index) throws IllegalArgumentException {
+		Location result = 0 <= index && index < cache.length ? cache[index] : null;
+		if (result == null)
+			throw new IllegalArgumentException("invalid cell index " + index);
+		return result;
+	}
+
 	/**
 	 * Create a new location.
-	 * Precondition: row and col are in the range 0..NUM_ROWS-1
-	 *               and 0..NUM_COLS-1 respectively.
+	 * Precondition: row and col are in the range 0..MAX_ROWS-1
+	 *               and 0..MAX_COLS-1 respectively.
 	 */
 	public Location(int row, int col) {
-		if (!( 0 <= row && row < Board.NUM_ROWS
-		    && 0 <= col && col < Board.NUM_COLS))
+		if (!( 0 <= row && row < Geometry.MAX_ROWS
+		    && 0 <= col && col < Geometry.MAX_COLS))
 			throw new IllegalArgumentException("location out of bounds");
 		this.row = row; this.col = col;
+		this.index = row * Geometry.STRIDE + col;
 	}
 	
 	public @Override String toString() {
@@ -44,4 +89,9 @@ public class Location {
 		return this.row == row && this.col == col;
 	}
 	
+	/** Equal locations have the same cell index. */
+	public @Override int hashCode() {
+		return this.index;
+	}
+	
 }
@@ -0,0 +1,38 @@
+package model;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Board.State;
+
+/**
+ * A Position is a read-only view of the marks on a board.  Both the immutable
+ * {@link Board} and the mutable {@link SearchBoard} are Positions, so code
+ * that only needs to look at a board (such as an evaluation function) can be
+ * written once and used with either.
+ */
+public interface Position {
+
+	/** Return the player who has played in loc, or null if loc is empty. */
+	Player get(@NonNull Location loc);
+
+	/** Return the player who has played in (r,c), or null if it is empty. */
+	Player get(int row, int col);
+
+	/**
+	 * Return the player who has played in the cell with the given index (see
+	 * {@link Location#index}), or null if it is empty.
+	 */
+	Player get(int index);
+
+	/** Return the state of the board. */
+	@NonNull State getState();
+
+	/** Return the size and shape of the board. */
+	@NonNull Geometry getGeometry();
+
+	/**
+	 * Return the Zobrist key of the marks on the board.  Positions with the
+	 * same marks have the same key, whether they are Boards or SearchBoards.
+	 */
+	long getKey();
+}
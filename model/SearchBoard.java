@@ -0,0 +1,246 @@
+package model;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import model.Board.State;
+
+/**
+ * A SearchBoard is a mutable board intended for searching ahead: instead of
+ * creating a new copy for every move, moves are made with play(...) and taken
+ * back with undo(), in last-in first-out order.
+ *
+ * <p>A SearchBoard also keeps track of whose turn it is, so play(...) always
+ * places a mark for the player returned by nextTurn().  The number of blank
+ * cells, the state and the winner are maintained as moves are made and undone.
+ *
+ * <p>SearchBoards are created from a Board snapshot, and do not affect the
+ * Board they were created from.
+ */
+public class SearchBoard implements Position {
+
+	private final Geometry   geometry;
+	private final long[]     marks;    // same layout as Board's marks
+	private final LineCounts counts;   // the number of marks in each line
+	private LineCodes        codes;    // encoded runs, or null until requested
+	private long[]           keys;     // the keys of the symmetric images, or null until requested
+	private int[][]          maps;     // the symmetries of the geometry, once keys is set
+	private Frontier[]       frontiers; // frontiers[r] has radius r, or null until requested
+	private final int[]      moves;    // moves[i] is the bit played at ply i
+	private int              numMoves; // number of moves played since the snapshot
+	private int              numBlank; // the number of empty cells
+	private long             key;      // the Zobrist key of the marks
+	private Player           next;     // the player who plays next
+	private Player           winner;   // the winner, or null if nobody has won
+	private int              winLine;  // the number of the winner's line
+
+	/** Create a search board with the same marks as b, where p plays next. */
+	public SearchBoard(@NonNull Board b, @NonNull Player p) {
+		this.geometry = b.getGeometry();
+		this.marks    = geometry.newMarks();
+		this.moves    = new int[geometry.size()];
+		this.numMoves = 0;
+		this.numBlank = b.numBlank();
+		this.key      = b.getKey();
+		this.next     = p;
+		b.copyMarks(this.marks);
+		this.counts   = new LineCounts(b);
+		this.winner   = b.getState() == State.HAS_WINNER ? b.getWinner().winner : null;
+		this.winLine  = winner == null ? -1 : b.winLine();
+	}
+
+	/**
+	 * Place a mark for nextTurn() at loc, and pass the turn to the opponent.
+	 * @throws IllegalArgumentException if loc has already been played
+	 * @throws IllegalStateException if the game is over
+	 */
+	public void play(@NonNull Location loc)
+	     throws IllegalArgumentException, IllegalStateException
+	{
+		play(loc.index);
+	}
+
+	/**
+	 * Place a mark for nextTurn() in the cell with the given index (see
+	 * {@link Location#index}), and pass the turn to the opponent.
+	 * @throws IllegalArgumentException if the cell has already been played
+	 * @throws IllegalStateException if the game is over
+	 */
+	public void play(int index)
+	     throws IllegalArgumentException, IllegalStateException
+	{
+		if (!geometry.contains(index))
+			throw new IllegalArgumentException(Location.of(index) + " is not on the board");
+		if (geometry.get(marks, index) != null)
+			throw new IllegalArgumentException(Location.of(index) + " is already taken");
+		if (getState() != State.NOT_OVER)
+			throw new IllegalStateException("Can only play moves if the game is not over");
+
+		marks[geometry.offset(next) + (index >>> 6)] |= 1L << index;
+		moves[numMoves++] = index;
+		numBlank--;
+		key    ^= Zobrist.key(next, index);
+		// only lines through the new mark can have been completed
+		winLine = counts.place(next, index);
+		if (codes != null)
+			codes.place(next, index);
+		if (keys != null)
+			updateKeys(next, index);
+		if (frontiers != null)
+			for (Frontier f : frontiers)
+				if (f != null)
+					f.place(index);
+		winner  = winLine >= 0 ? next : null;
+		next    = next.opponent();
+	}
+
+	/**
+	 * Take back the most recent move made with play(...).
+	 * @throws IllegalStateException if there are no moves to undo
+	 */
+	public void undo() throws IllegalStateException {
+		if (numMoves == 0)
+			throw new IllegalStateException("no moves to undo");
+
+		int bit = moves[--numMoves];
+		next = next.opponent();
+		marks[geometry.offset(next) + (bit >>> 6)] &= ~(1L << bit);
+		counts.remove(next, bit);
+		if (codes != null)
+			codes.remove(next, bit);
+		if (keys != null)
+			updateKeys(next, bit);
+		if (frontiers != null)
+			for (Frontier f : frontiers)
+				if (f != null)
+					f.remove(bit);
+		numBlank++;
+		key ^= Zobrist.key(next, bit);
+		// no moves can be played after a win, so the position we are returning
+		// to had no winner
+		winner = null;
+	}
+
+	public @Override @NonNull Geometry getGeometry() {
+		return geometry;
+	}
+
+	public @Override long getKey() {
+		return key;
+	}
+
+	/**
+	 * Return the number of marks each player has in each line.  The result
+	 * is kept up to date as moves are played and undone, and must not be
+	 * modified by the caller.
+	 */
+	public @NonNull LineCounts getLineCounts() {
+		return counts;
+	}
+
+	/**
+	 * Return the encoded rows, columns and diagonals of this board.  They are
+	 * created on the first call, and from then on kept up to date as moves
+	 * are played and undone.  The result must not be modified by the caller.
+	 */
+	public @NonNull LineCodes getLineCodes() {
+		if (codes == null)
+			codes = new LineCodes(this);
+		return codes;
+	}
+
+	/**
+	 * Return the empty cells within the given radius of a mark (see
+	 * {@link Frontier}).  The frontier for each radius is created on the first
+	 * call, and from then on kept up to date as moves are played and undone.
+	 * The result must not be modified by the caller.
+	 * @throws IllegalArgumentException if radius is not between 1 and
+	 *         Frontier.MAX_RADIUS.
+	 */
+	public @NonNull Frontier getFrontier(int radius) throws IllegalArgumentException {
+		if (radius < 1 || radius > Frontier.MAX_RADIUS)
+			throw new IllegalArgumentException("invalid frontier radius: " + radius);
+		if (frontiers == null)
+			frontiers = new Frontier[Frontier.MAX_RADIUS + 1];
+		if (frontiers[radius] == null)
+			frontiers[radius] = new Frontier(this, radius);
+		return frontiers[radius];
+	}
+
+	/**
+	 * Return the Zobrist key of the image of this board under symmetry s (see
+	 * {@link Symmetry}).  The keys of all the images are computed on the first
+	 * call, and from then on kept up to date as moves are played and undone.
+	 */
+	public long getSymmetricKey(int s) {
+		if (keys == null) {
+			long[] k = new long[Symmetry.COUNT];
+			maps = Symmetry.maps(geometry);
+			for (int cell : geometry.cells()) {
+				Player p = get(cell);
+				if (p != null)
+					for (int i = 0; i < k.length; i++)
+						k[i] ^= Zobrist.key(p, maps[i][cell]);
+			}
+			keys = k;
+		}
+		return keys[s];
+	}
+
+	/** Add or remove p's mark on cell in the keys of the symmetric images. */
+	private void updateKeys(Player p, int cell) {
+		for (int s = 0; s < keys.length; s++)
+			keys[s] ^= Zobrist.key(p, maps[s][cell]);
+	}
+
+	/** Return the player who should play next. */
+	public @NonNull Player nextTurn() {
+		return next;
+	}
+
+	/** Return the number of moves that can currently be undone. */
+	public int numMoves() {
+		return numMoves;
+	}
+
+	/** Return the number of empty cells. */
+	public int numBlank() {
+		return numBlank;
+	}
+
+	public @Override Player get(@NonNull Location loc) {
+		return geometry.get(marks, loc.index);
+	}
+
+	public @Override Player get(int row, int col) {
+		return geometry.get(marks, Geometry.bit(row, col));
+	}
+
+	public @Override Player get(int index) {
+		return geometry.get(marks, index);
+	}
+
+	public @Override @NonNull State getState() {
+		if (winner != null)
+			return State.HAS_WINNER;
+		else if (numBlank == 0)
+			return State.DRAW;
+		else
+			return State.NOT_OVER;
+	}
+
+	/**
+	 * Return the player who has won.
+	 * Precondition: getState() == HAS_WINNER
+	 */
+	public @NonNull Player getWinningPlayer() {
+		return winner;
+	}
+
+	/**
+	 * Return a Victory object describing the win.
+	 * Precondition: getState() == HAS_WINNER
+	 */
+	public @NonNull Victory getWinner() {
+		return new Victory(winner, geometry.lines().get(winLine));
+	}
+}
@@ -0,0 +1,136 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * The symmetries of a board: the ways of rotating and reflecting it that map
+ * it onto itself.  Positions that are mapped onto each other by a symmetry
+ * are equally good, so tables of positions (such as an opening book) need
+ * only store one of them.
+ *
+ * <p>A symmetry is numbered from 0 to COUNT - 1.  Symmetry s first swaps
+ * rows and columns if bit 2 of s is set (only square boards have these
+ * symmetries), then reverses the rows if bit 0 is set, and reverses the
+ * columns if bit 1 is set.  Symmetry 0 leaves the board unchanged.
+ *
+ * <p>The canonical key of a position is the smallest of the Zobrist keys of
+ * its images under the symmetries, so symmetric positions have the same
+ * canonical key.  SearchBoards keep the keys of their images up to date as
+ * moves are played, so their canonical keys are cheap to compute.  Tables
+ * whose entries depend on the player to move use the keys that also include
+ * the player to move, such as canonicalKey(b, p).
+ */
+public class Symmetry {
+
+	/** The number of symmetries of a square board. */
+	public static final int COUNT = 8;
+
+	private static final int FLIP_ROWS = 1, FLIP_COLS = 2, TRANSPOSE = 4;
+
+	// MAPS.get(g)[s][cell] is apply(g, s, cell)
+	private static final Map<Geometry, int[][]> MAPS = new ConcurrentHashMap<>();
+
+	/** Return true if s is a symmetry of boards with geometry g. */
+	public static boolean appliesTo(@NonNull Geometry g, int s) {
+		return (s & TRANSPOSE) == 0 || g.rows == g.cols;
+	}
+
+	/**
+	 * Return the index of the cell that the cell with the given index is
+	 * mapped to by symmetry s of g.
+	 * Precondition: appliesTo(g, s)
+	 */
+	public static int apply(@NonNull Geometry g, int s, int cell) {
+		int r = cell / Geometry.STRIDE, c = cell % Geometry.STRIDE;
+		if ((s & TRANSPOSE) != 0) {
+			int t = r;
+			r = c;
+			c = t;
+		}
+		if ((s & FLIP_ROWS) != 0)
+			r = g.rows - 1 - r;
+		if ((s & FLIP_COLS) != 0)
+			c = g.cols - 1 - c;
+		return Geometry.bit(r, c);
+	}
+
+	/** Return the symmetry that undoes symmetry s. */
+	public static int inverse(int s) {
+		// reversing the rows after a transpose is the same as reversing the
+		// columns before it
+		if ((s & TRANSPOSE) == 0)
+			return s;
+		return TRANSPOSE | (s & FLIP_ROWS) << 1 | (s & FLIP_COLS) >> 1;
+	}
+
+	/**
+	 * Return a table of the symmetries of g: [s][cell] is apply(g, s, cell) if
+	 * s applies to g, and cell otherwise.  The result must not be modified.
+	 */
+	static int[][] maps(Geometry g) {
+		return MAPS.computeIfAbsent(g, geometry -> {
+			int[][] result = new int[COUNT][Geometry.NUM_INDICES];
+			for (int s = 0; s < COUNT; s++)
+				for (int cell : geometry.cells())
+					result[s][cell] = appliesTo(geometry, s) ? apply(geometry, s, cell) : cell;
+			return result;
+		});
+	}
+
+	/** Return the Zobrist key of the image of b under symmetry s. */
+	public static long key(@NonNull Position b, int s) {
+		if (b instanceof SearchBoard)
+			return ((SearchBoard) b).getSymmetricKey(s);
+
+		Geometry g      = b.getGeometry();
+		long     result = 0;
+		for (int cell : g.cells()) {
+			Player p = b.get(cell);
+			if (p != null)
+				result ^= Zobrist.key(p, apply(g, s, cell));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the Zobrist key of the image of b under symmetry s, with p to
+	 * move.  It differs from key(b, s) if p is O.
+	 */
+	public static long key(@NonNull Position b, int s, @NonNull Player p) {
+		return key(b, s) ^ Zobrist.turn(p);
+	}
+
+	/**
+	 * Return the symmetry that maps b to its canonical image (the one with the
+	 * smallest key), or the first such symmetry if there are several.
+	 */
+	public static int canonical(@NonNull Position b) {
+		int  best    = 0;
+		long bestKey = b.getKey();
+		for (int s = 1; s < COUNT; s++)
+			if (appliesTo(b.getGeometry(), s)) {
+				long key = key(b, s);
+				if (key < bestKey) {
+					best    = s;
+					bestKey = key;
+				}
+			}
+		return best;
+	}
+
+	/** Return the canonical key of b (see above). */
+	public static long canonicalKey(@NonNull Position b) {
+		return key(b, canonical(b));
+	}
+
+	/** Return the canonical key of b with p to move. */
+	public static long canonicalKey(@NonNull Position b, @NonNull Player p) {
+		return key(b, canonical(b), p);
+	}
+
+	private Symmetry() {
+	}
+}
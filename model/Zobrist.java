@@ -0,0 +1,46 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys for board positions.  Every (player, cell) pair is assigned a
+ * random 64-bit number, and the key of a position is the exclusive or of the
+ * numbers for all of the marks on it.  Placing or removing a mark therefore
+ * changes the key by a single xor.  Tables that need to tell positions with
+ * different players to move apart also xor in turn(...).
+ *
+ * <p>The numbers are generated from a fixed seed, so keys are the same from
+ * one run of the program to the next, and can be stored on disk.
+ */
+class Zobrist {
+	private static final long SEED = 0x5EED_F1BE_1AB5L;
+
+	// indexed by Geometry.bit(r,c), for the largest possible board
+	private static final long[] xKeys = new long[Geometry.MAX_ROWS * Geometry.STRIDE];
+	private static final long[] oKeys = new long[Geometry.MAX_ROWS * Geometry.STRIDE];
+
+	// the number for O to move (X to move is 0)
+	private static final long oTurn;
+
+	static {
+		Random random = new Random(SEED);
+		for (int i = 0; i < xKeys.length; i++) {
+			xKeys[i] = random.nextLong();
+			oKeys[i] = random.nextLong();
+		}
+		oTurn = random.nextLong();
+	}
+
+	/** Return the number for a mark by p on the given bit. */
+	static long key(Player p, int bit) {
+		return p == Player.X ? xKeys[bit] : oKeys[bit];
+	}
+
+	/** Return the number for p being the player to move. */
+	static long turn(Player p) {
+		return p == Player.X ? 0 : oTurn;
+	}
+
+	private Zobrist() {
+	}
+}
@@ -9,6 +9,9 @@
  * <p>The {@link model.Game Game} class is the primary interface with the rest of the
  * system.  The other classes ({@link model.Board Board}, {@link model.Player Player}, {@link model.Location Location},
  * {@link model.Victory Victory}, etc) are simple data structures.
+ *
+ * <p>{@link model.SearchBoard SearchBoard} is a mutable counterpart to Board
+ * that the AIs use to play and take back moves while searching ahead.
  */
 
 package model;
@@ -0,0 +1,140 @@
+package model.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import model.Board;
+import model.Board.State;
+import model.Geometry;
+import model.Line;
+import model.Location;
+import model.Player;
+
+public class BoardTest {
+
+	/** Play p at each of the given (row, col) pairs, starting from b. */
+	private static Board play(Board b, Player p, int... cells) {
+		for (int i = 0; i < cells.length; i += 2)
+			b = b.update(p, new Location(cells[i], cells[i+1]));
+		return b;
+	}
+
+	@Test
+	public void testGetAndUpdate() {
+		Board b = play(Board.EMPTY, Player.X, 0,0, 4,4, 8,8);
+		b = play(b, Player.O, 0,8, 8,0);
+
+		assertEquals(Player.X, b.get(0,0));
+		assertEquals(Player.X, b.get(new Location(4,4)));
+		assertEquals(Player.X, b.get(8,8));
+		assertEquals(Player.O, b.get(0,8));
+		assertEquals(Player.O, b.get(8,0));
+		assertNull(b.get(0,1));
+		assertNull(Board.EMPTY.get(4,4));
+		assertEquals(State.NOT_OVER, b.getState());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUpdateTaken() {
+		play(Board.EMPTY, Player.X, 4,4).update(Player.O, new Location(4,4));
+	}
+
+	@Test
+	public void testVictoryDirections() {
+		checkWin(play(Board.EMPTY, Player.X, 2,4, 2,5, 2,6, 2,7, 2,8), 2,4, 2,8);
+		checkWin(play(Board.EMPTY, Player.O, 4,0, 5,0, 6,0, 7,0, 8,0), 4,0, 8,0);
+		checkWin(play(Board.EMPTY, Player.X, 0,0, 1,1, 2,2, 3,3, 4,4), 0,0, 4,4);
+		checkWin(play(Board.EMPTY, Player.X, 8,4, 7,5, 6,6, 5,7, 4,8), 8,4, 4,8);
+	}
+
+	@Test
+	public void testNoWrapAround() {
+		// four at the end of row 1 followed by one at the start of row 2
+		Board b = play(Board.EMPTY, Player.X, 1,5, 1,6, 1,7, 1,8, 2,0);
+		assertEquals(State.NOT_OVER, b.getState());
+
+		// a diagonal that would continue off the right edge
+		b = play(Board.EMPTY, Player.X, 0,5, 1,6, 2,7, 3,8, 4,0);
+		assertEquals(State.NOT_OVER, b.getState());
+
+		// four in a row, broken by the opponent
+		b = play(Board.EMPTY, Player.X, 3,0, 3,1, 3,3, 3,4);
+		b = play(b, Player.O, 3,2);
+		assertEquals(State.NOT_OVER, b.getState());
+	}
+
+	@Test
+	public void testDraw() {
+		// rows alternate between XXOOXXOOX and OOXXOOXXO, shifted by one
+		// column every two rows; no five-in-a-row is possible.
+		Board b = Board.EMPTY;
+		for (int r = 0; r < Board.NUM_ROWS; r++)
+			for (int c = 0; c < Board.NUM_COLS; c++)
+				b = b.update(((c + r/2*3 + r%2) / 2) % 2 == 0 ? Player.X : Player.O,
+				             new Location(r,c));
+		assertEquals(State.DRAW, b.getState());
+	}
+
+	@Test
+	public void testLargeBoards() {
+		Board b = play(Board.empty(Geometry.LARGE), Player.X, 18,14, 17,15, 16,16, 15,17);
+		assertEquals(State.NOT_OVER, b.getState());
+		checkWin(play(b, Player.X, 14,18), 18,14, 14,18);
+
+		b = play(Board.empty(Geometry.STANDARD), Player.O, 14,10, 14,11, 14,12, 14,13, 14,14);
+		checkWin(b, 14,10, 14,14);
+
+		assertEquals(225, Geometry.STANDARD.locations().size());
+		assertEquals(2 * 11 * 15 + 2 * 11 * 11, Geometry.STANDARD.lines().size());
+		assertEquals(3, Geometry.LARGE.neighbors(new Location(0,0)).length);
+		assertEquals(8, Geometry.LARGE.neighbors(new Location(9,9)).length);
+		assertSame(Geometry.STANDARD, Geometry.of(15,15));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUpdateOffBoard() {
+		Board.EMPTY.update(Player.X, new Location(9,0));
+	}
+
+	@Test
+	public void testEqualsAndKey() {
+		Board a = play(play(Board.EMPTY, Player.X, 4,4, 3,3), Player.O, 5,5);
+		Board b = play(play(Board.EMPTY, Player.O, 5,5), Player.X, 3,3, 4,4);
+		Board c = play(play(Board.EMPTY, Player.X, 4,4, 5,5), Player.O, 3,3);
+
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertEquals(a.getKey(), b.getKey());
+		assertFalse(a.equals(c));
+		assertFalse(a.getKey() == c.getKey());
+		assertEquals(0, Board.EMPTY.getKey());
+		assertFalse(Board.EMPTY.equals(Board.empty(Geometry.STANDARD)));
+	}
+
+	@Test
+	public void testCellIndices() {
+		Location loc = Location.of(3,7);
+		assertSame(loc, Location.of(3,7));
+		assertSame(loc, Location.of(loc.index));
+		assertEquals(new Location(3,7), loc);
+		assertEquals(new Location(3,7).hashCode(), loc.hashCode());
+
+		Board b = Board.EMPTY.update(Player.X, loc.index);
+		assertEquals(Player.X, b.get(loc.index));
+		assertEquals(Player.X, b.get(3,7));
+		assertEquals(b, Board.EMPTY.update(Player.X, loc));
+
+		for (int cell : Geometry.DEFAULT.cells())
+			assertTrue(Geometry.DEFAULT.contains(Location.of(cell)));
+		assertEquals(81, Geometry.DEFAULT.cells().length);
+	}
+
+	/** Check that b has been won along the line from (r1,c1) to (r2,c2). */
+	private static void checkWin(Board b, int r1, int c1, int r2, int c2) {
+		assertEquals(State.HAS_WINNER, b.getState());
+		Line l = b.getWinner().line;
+		assertTrue(l.contains(r1,c1));
+		assertTrue(l.contains(r2,c2));
+	}
+}
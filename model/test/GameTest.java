@@ -0,0 +1,93 @@
+package model.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.Board;
+import model.Game;
+import model.Geometry;
+import model.Location;
+import model.Player;
+
+public class GameTest {
+
+	@Test
+	public void testUndoRedo() {
+		Game g = new Game();
+		g.submitMove(Player.X, Location.of(4,4));
+		g.submitMove(Player.O, Location.of(3,3));
+		Board after2 = g.getBoard();
+
+		g.undo();
+		assertEquals(Player.O, g.nextTurn());
+		assertNull(g.getBoard().get(3,3));
+		assertEquals(1, g.numMoves());
+
+		g.redo();
+		assertEquals(after2, g.getBoard());
+		assertEquals(Player.X, g.nextTurn());
+		assertFalse(g.canRedo());
+
+		g.undo();
+		g.undo();
+		assertSame(Board.EMPTY, g.getBoard());
+		assertFalse(g.canUndo());
+
+		// a new move forgets the moves that could have been redone
+		g.submitMove(Player.X, Location.of(0,0));
+		assertFalse(g.canRedo());
+		assertArrayEquals(new int[] { Location.of(0,0).index }, g.getMoves());
+	}
+
+	@Test
+	public void testFork() {
+		Game g = new Game();
+		g.submitMove(Player.X, Location.of(4,4));
+		g.submitMove(Player.O, Location.of(3,3));
+
+		Game f = g.fork();
+		f.submitMove(Player.X, Location.of(5,5));
+		g.submitMove(Player.X, Location.of(2,2));
+
+		assertEquals(Player.X, f.getBoard().get(5,5));
+		assertNull(f.getBoard().get(2,2));
+		assertNull(g.getBoard().get(5,5));
+
+		f.undo();
+		assertEquals(g.getMoves()[1], f.getMoves()[1]);
+		assertEquals(2, f.numMoves());
+		assertEquals(3, g.numMoves());
+	}
+
+	@Test
+	public void testUndoRedoLongGame() {
+		// play many moves, then undo and redo them all, checking that the
+		// boards rebuilt from the current one (marks and keys) are the same
+		Game        g      = new Game(Geometry.of(19, 19), Player.X);
+		List<Board> boards = new ArrayList<>();
+		Random      random = new Random(7);
+		boards.add(g.getBoard());
+		for (int i = 0; i < 50; i++) {
+			Location loc;
+			do
+				loc = Location.of(random.nextInt(19), random.nextInt(19));
+			while (g.getBoard().get(loc) != null);
+			g.submitMove(g.nextTurn(), loc);
+			boards.add(g.getBoard());
+		}
+
+		for (int i = boards.size() - 2; i >= 0; i--) {
+			g.undo();
+			assertEquals(boards.get(i), g.getBoard());
+		}
+		for (int i = 1; i < boards.size(); i++) {
+			g.redo();
+			assertEquals(boards.get(i), g.getBoard());
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package model.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.Board;
+import model.Board.State;
+import model.Frontier;
+import model.Geometry;
+import model.LineCodes;
+import model.LineCounts;
+import model.Location;
+import model.Player;
+import model.SearchBoard;
+
+public class SearchBoardTest {
+
+	@Test
+	public void testPlayAndUndo() {
+		Board start = Board.EMPTY.update(Player.X, new Location(4,4));
+		SearchBoard b = new SearchBoard(start, Player.O);
+
+		b.play(new Location(3,3));
+		b.play(new Location(4,5));
+		assertEquals(Player.O, b.get(3,3));
+		assertEquals(Player.X, b.get(new Location(4,5)));
+		assertEquals(Player.O, b.nextTurn());
+		assertEquals(78, b.numBlank());
+
+		b.undo();
+		b.undo();
+		assertNull(b.get(3,3));
+		assertNull(b.get(4,5));
+		assertEquals(Player.X, b.get(4,4));
+		assertEquals(Player.O, b.nextTurn());
+		assertEquals(80, b.numBlank());
+
+		// the original board is unaffected
+		assertNull(start.get(3,3));
+		assertEquals(start.getKey(), b.getKey());
+
+		// the key follows the marks, like Board's
+		b.play(new Location(3,3));
+		assertEquals(start.update(Player.O, new Location(3,3)).getKey(), b.getKey());
+	}
+
+	@Test
+	public void testWinAndUndo() {
+		SearchBoard b = new SearchBoard(Board.EMPTY, Player.X);
+		for (int c = 0; c < 4; c++) {
+			b.play(new Location(0,c));
+			b.play(new Location(1,c));
+		}
+		assertEquals(State.NOT_OVER, b.getState());
+
+		b.play(new Location(0,4));
+		assertEquals(State.HAS_WINNER, b.getState());
+		assertEquals(Player.X, b.getWinningPlayer());
+		assertTrue(b.getWinner().line.contains(0,0));
+		assertTrue(b.getWinner().line.contains(0,4));
+
+		b.undo();
+		assertEquals(State.NOT_OVER, b.getState());
+		assertEquals(Player.X, b.nextTurn());
+	}
+
+	@Test
+	public void testLineCounts() {
+		Board start = Board.EMPTY.update(Player.X, new Location(4,4));
+		SearchBoard b = new SearchBoard(start, Player.O);
+		b.play(new Location(4,5));
+		b.play(new Location(3,3));
+		b.play(new Location(2,2));
+		b.undo();
+
+		Board same = start.update(Player.O, new Location(4,5))
+		                  .update(Player.X, new Location(3,3));
+		LineCounts expected = new LineCounts(same);
+		int lines = Geometry.DEFAULT.lines().size();
+		for (int line = 0; line < lines; line++) {
+			assertEquals(expected.count(line, Player.X), b.getLineCounts().count(line, Player.X));
+			assertEquals(expected.count(line, Player.O), b.getLineCounts().count(line, Player.O));
+		}
+
+		// the line from (0,0) to (4,4) has both of X's marks
+		int through = 0;
+		for (int line : Geometry.DEFAULT.linesThrough(Location.of(4,4).index))
+			if (Geometry.DEFAULT.lines().get(line).contains(0,0))
+				through = line;
+		assertEquals(2, b.getLineCounts().count(through, Player.X));
+		assertEquals(20, Geometry.DEFAULT.linesThrough(Location.of(4,4).index).length);
+	}
+
+	@Test
+	public void testWeightedSum() {
+		// play and undo random moves, keeping the sums up to date as we go,
+		// and compare them with sums computed from scratch
+		int[]  weights = { 0, 1, 10, 100, 1000, 10000 };
+		Random random  = new Random(16);
+		for (Geometry g : new Geometry[] { Geometry.DEFAULT, Geometry.STANDARD }) {
+			SearchBoard b = new SearchBoard(Board.empty(g), Player.X);
+			b.getLineCounts().weightedSum(Player.X, weights);
+			Board board = Board.empty(g);
+			for (int i = 0; i < 200 && b.getState() == State.NOT_OVER; i++) {
+				if (b.numMoves() > 0 && random.nextInt(3) == 0) {
+					b.undo();
+					board = rebuild(b);
+				} else {
+					int cell = g.cells()[random.nextInt(g.size())];
+					if (b.get(cell) != null)
+						continue;
+					board = board.update(b.nextTurn(), cell);
+					b.play(cell);
+				}
+				LineCounts expected = new LineCounts(board);
+				for (Player p : Player.values())
+					assertEquals(expected.weightedSum(p, weights.clone()),
+					             b.getLineCounts().weightedSum(p, weights));
+			}
+		}
+	}
+
+	@Test
+	public void testWindowSum() {
+		// as above, for the sums of random pattern tables over the line codes
+		Random random = new Random(17);
+		int[][] tables = new int[2][LineCodes.NUM_CODES];
+		for (int[] table : tables)
+			for (int i = 0; i < table.length; i++)
+				table[i] = random.nextInt(1000);
+
+		for (Geometry g : new Geometry[] { Geometry.DEFAULT, Geometry.LARGE }) {
+			SearchBoard b = new SearchBoard(Board.empty(g), Player.X);
+			for (int[] table : tables)
+				b.getLineCodes().windowSum(table);
+			Board board = Board.empty(g);
+			for (int i = 0; i < 200 && b.getState() == State.NOT_OVER; i++) {
+				if (b.numMoves() > 0 && random.nextInt(3) == 0) {
+					b.undo();
+					board = rebuild(b);
+				} else {
+					int cell = g.cells()[random.nextInt(g.size())];
+					if (b.get(cell) != null)
+						continue;
+					board = board.update(b.nextTurn(), cell);
+					b.play(cell);
+				}
+				LineCodes expected = new LineCodes(board);
+				for (int[] table : tables)
+					assertEquals(expected.windowSum(table), b.getLineCodes().windowSum(table));
+			}
+		}
+
+		// an empty 9x9 board has 9+9 rows and columns of 9 cells (6 windows
+		// each, including the walls), and 2*(1+2*4) diagonals of 5 to 9 cells
+		int[] ones = new int[LineCodes.NUM_CODES];
+		Arrays.fill(ones, 1);
+		assertEquals(18*6 + 2*(6 + 2*(2+3+4+5)), new LineCodes(Board.EMPTY).windowSum(ones));
+	}
+
+	@Test
+	public void testFrontier() {
+		// play and undo random moves on a 15x15 board, comparing the frontiers
+		// kept up to date by the board with ones computed from scratch
+		Random random = new Random(7);
+		Geometry g = Geometry.STANDARD;
+		SearchBoard b = new SearchBoard(Board.empty(g), Player.X);
+		assertEquals(0, b.getFrontier(1).size());
+		assertEquals(0, b.getFrontier(2).size());
+
+		int[] expected = new int[Geometry.NUM_INDICES], actual = new int[Geometry.NUM_INDICES];
+		for (int i = 0; i < 300 && b.getState() == State.NOT_OVER; i++) {
+			if (b.numMoves() > 0 && random.nextInt(3) == 0)
+				b.undo();
+			else {
+				int cell = g.cells()[random.nextInt(g.size())];
+				if (b.get(cell) == null)
+					b.play(cell);
+			}
+			for (int radius = 1; radius <= 2; radius++) {
+				int n = new Frontier(rebuild(b), radius).cells(expected);
+				assertEquals(n, b.getFrontier(radius).size());
+				assertEquals(n, b.getFrontier(radius).cells(actual));
+				assertArrayEquals(Arrays.copyOf(expected, n), Arrays.copyOf(actual, n));
+			}
+		}
+
+		// a single mark in the middle of the board
+		b = new SearchBoard(Board.empty(g).update(Player.X, new Location(7,7)), Player.O);
+		assertEquals(8,  b.getFrontier(1).size());
+		assertEquals(24, b.getFrontier(2).size());
+		assertTrue(b.getFrontier(2).contains(Location.of(5,9).index));
+		assertFalse(b.getFrontier(1).contains(Location.of(5,9).index));
+		assertFalse(b.getFrontier(1).contains(Location.of(7,7).index));
+	}
+
+	/** Return a Board with the same marks as b. */
+	private static Board rebuild(SearchBoard b) {
+		Board result = Board.empty(b.getGeometry());
+		for (int cell : b.getGeometry().cells())
+			if (b.get(cell) != null)
+				result = result.update(b.get(cell), cell);
+		return result;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPlayTaken() {
+		SearchBoard b = new SearchBoard(Board.EMPTY, Player.X);
+		b.play(new Location(4,4));
+		b.play(new Location(4,4));
+	}
+}